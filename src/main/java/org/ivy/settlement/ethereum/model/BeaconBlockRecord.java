@@ -6,9 +6,9 @@ import org.ivy.settlement.infrastructure.bytes.ByteUtil;
 import org.ivy.settlement.infrastructure.datasource.model.Keyable;
 import org.ivy.settlement.infrastructure.datasource.model.Persistable;
 import org.ivy.settlement.infrastructure.rlp.RLP;
-import org.ivy.settlement.infrastructure.rlp.RLPList;
 import org.ivy.settlement.ethereum.log.EthLogParser;
 import org.ivy.settlement.ethereum.model.event.SettlementLogEventCollector;
+import org.ivy.settlement.infrastructure.rlp.RLPView;
 import tech.pegasys.teku.spec.Spec;
 import tech.pegasys.teku.spec.datastructures.blocks.SignedBeaconBlock;
 
@@ -66,13 +66,13 @@ public class BeaconBlockRecord extends Persistable implements Keyable {
 
     @Override
     protected void rlpDecoded() {
-        RLPList rlpList = (RLPList) RLP.decode2(rlpEncoded).get(0);
-        this.number = ByteUtil.byteArrayToLong(rlpList.get(0).getRLPData());
-        this.slot = ByteUtil.bytesToBigInteger(rlpList.get(1).getRLPData());
-        this.signedBeaconBlockBytes = rlpList.get(2).getRLPData();
+        var rlpList = RLPView.of(rlpEncoded);
+        this.number = rlpList.get(0).asLong();
+        this.slot = rlpList.get(1).asBigInteger();
+        this.signedBeaconBlockBytes = rlpList.get(2).bytes();
         this.receipts = new ArrayList<>(rlpList.size() - CODEC_OFFSET);
         for (var i = CODEC_OFFSET; i < rlpList.size(); i++) {
-            this.receipts.add(new EthReceipt(rlpList.get(i).getRLPData()));
+            this.receipts.add(new EthReceipt(rlpList.get(i).encoded()));
         }
     }
 
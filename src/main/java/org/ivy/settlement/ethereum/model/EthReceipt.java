@@ -4,8 +4,8 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import org.ivy.settlement.infrastructure.bytes.ByteUtil;
 import org.ivy.settlement.infrastructure.rlp.RLP;
-import org.ivy.settlement.infrastructure.rlp.RLPList;
 import org.ivy.settlement.infrastructure.rlp.RLPModel;
+import org.ivy.settlement.infrastructure.rlp.RLPView;
 import org.ivy.settlement.infrastructure.string.Numeric;
 import org.spongycastle.util.encoders.Hex;
 import org.web3j.protocol.core.methods.response.Log;
@@ -198,47 +198,47 @@ public class EthReceipt extends RLPModel {
 
     @Override
     protected void rlpDecoded() {
-        RLPList rlpList = (RLPList) RLP.decode2(rlpEncoded).get(0);
-
-        this.transactionHash = rlpList.get(0).getRLPData() == null ? null : new String(rlpList.get(0).getRLPData());
-        this.transactionIndex = rlpList.get(1).getRLPData() == null ? null : new String(rlpList.get(1).getRLPData());
-        this.blockHash = rlpList.get(2).getRLPData() == null ? null : new String(rlpList.get(2).getRLPData());
-        this.blockNumber = rlpList.get(3).getRLPData() == null ? null : new String(rlpList.get(3).getRLPData());
-        this.cumulativeGasUsed = rlpList.get(4).getRLPData() == null ? null : new String(rlpList.get(4).getRLPData());
-        this.gasUsed = rlpList.get(5).getRLPData() == null ? null : new String(rlpList.get(5).getRLPData());
-        this.contractAddress = rlpList.get(6).getRLPData() == null ? null : new String(rlpList.get(6).getRLPData());
-        this.root = rlpList.get(7).getRLPData() == null ? null : new String(rlpList.get(7).getRLPData());
-        this.status = rlpList.get(8).getRLPData() == null ? null : new String(rlpList.get(8).getRLPData());
-        this.from = rlpList.get(9).getRLPData() == null ? null : new String(rlpList.get(9).getRLPData());
-        this.to = rlpList.get(10).getRLPData() == null ? null : new String(rlpList.get(10).getRLPData());
-
-        var logIter = ((RLPList) rlpList.get(11)).iterator();
-        this.logs = new ArrayList<>();
-        while (logIter.hasNext()) {
-            this.logs.add(decodeLog(logIter.next().getRLPData()));
+        var rlpList = RLPView.of(rlpEncoded);
+
+        this.transactionHash = rlpList.get(0).asString();
+        this.transactionIndex = rlpList.get(1).asString();
+        this.blockHash = rlpList.get(2).asString();
+        this.blockNumber = rlpList.get(3).asString();
+        this.cumulativeGasUsed = rlpList.get(4).asString();
+        this.gasUsed = rlpList.get(5).asString();
+        this.contractAddress = rlpList.get(6).asString();
+        this.root = rlpList.get(7).asString();
+        this.status = rlpList.get(8).asString();
+        this.from = rlpList.get(9).asString();
+        this.to = rlpList.get(10).asString();
+
+        var logList = rlpList.get(11);
+        this.logs = new ArrayList<>(logList.size());
+        for (var i = 0; i < logList.size(); i++) {
+            // every log is a list wrapped into an item, see rlpEncoded
+            this.logs.add(decodeLog(logList.get(i).nested()));
         }
 
-        this.logsBloom = rlpList.get(12).getRLPData() == null ? null : new String(rlpList.get(12).getRLPData());
-        this.revertReason = rlpList.get(13).getRLPData() == null ? null : new String(rlpList.get(13).getRLPData());
-        this.type = rlpList.get(14).getRLPData() == null ? null : new String(rlpList.get(14).getRLPData());
-        this.effectiveGasPrice = rlpList.get(15).getRLPData() == null ? null : new String(rlpList.get(15).getRLPData());
+        this.logsBloom = rlpList.get(12).asString();
+        this.revertReason = rlpList.get(13).asString();
+        this.type = rlpList.get(14).asString();
+        this.effectiveGasPrice = rlpList.get(15).asString();
     }
 
-    private static Log decodeLog(byte[] logEncode) {
-        var rlpList = (RLPList) RLP.decode2(logEncode).get(0);
-        var removed = (Objects.equals(ByteUtil.bytesToBigInteger(rlpList.get(0).getRLPData()), BigInteger.ONE));
-        var logIndex = rlpList.get(1).getRLPData() == null ? null : new String(rlpList.get(1).getRLPData());
-        var transactionIndex = rlpList.get(2).getRLPData() == null ? null : new String(rlpList.get(2).getRLPData());
-        var transactionHash = rlpList.get(3).getRLPData() == null ? null : new String(rlpList.get(3).getRLPData());
-        var blockHash = rlpList.get(4).getRLPData() == null ? null : new String(rlpList.get(4).getRLPData());
-        var blockNumber = rlpList.get(5).getRLPData() == null ? null : new String(rlpList.get(5).getRLPData());
-        var address = rlpList.get(6).getRLPData() == null ? null : new String(rlpList.get(6).getRLPData());
-        var data = rlpList.get(7).getRLPData() == null ? null : new String(rlpList.get(7).getRLPData());
-        var type = rlpList.get(8).getRLPData() == null ? null : new String(rlpList.get(8).getRLPData());
+    private static Log decodeLog(RLPView rlpList) {
+        var removed = (Objects.equals(rlpList.get(0).asBigInteger(), BigInteger.ONE));
+        var logIndex = rlpList.get(1).asString();
+        var transactionIndex = rlpList.get(2).asString();
+        var transactionHash = rlpList.get(3).asString();
+        var blockHash = rlpList.get(4).asString();
+        var blockNumber = rlpList.get(5).asString();
+        var address = rlpList.get(6).asString();
+        var data = rlpList.get(7).asString();
+        var type = rlpList.get(8).asString();
 
         var topics = new ArrayList<String>(rlpList.size() - 9);
         for (var i = 9; i < rlpList.size(); i++) {
-            topics.add(new String(rlpList.get(i).getRLPData()));
+            topics.add(rlpList.get(i).asString());
         }
         return new Log(removed, logIndex, transactionIndex, transactionHash, blockHash, blockNumber, address, data, type, topics);
     }
@@ -2,9 +2,9 @@ package org.ivy.settlement.ethereum.model;
 
 import org.ivy.settlement.infrastructure.bytes.ByteUtil;
 import org.ivy.settlement.infrastructure.rlp.RLP;
-import org.ivy.settlement.infrastructure.rlp.RLPList;
 import org.ivy.settlement.infrastructure.rlp.RLPModel;
 import org.ivy.settlement.infrastructure.anyhow.Assert;
+import org.ivy.settlement.infrastructure.rlp.RLPView;
 
 /**
  * description:
@@ -62,9 +62,9 @@ public class LatestUploadBlobState extends RLPModel {
 
     @Override
     protected void rlpDecoded() {
-        RLPList rlpList = (RLPList) RLP.decode2(rlpEncoded).get(0);
-        this.currentNumber = ByteUtil.byteArrayToLong(rlpList.get(0).getRLPData());
-        this.status = ByteUtil.byteArrayToInt(rlpList.get(1).getRLPData());
+        var rlpList = RLPView.of(rlpEncoded);
+        this.currentNumber = rlpList.get(0).asLong();
+        this.status = rlpList.get(1).asInt();
     }
 
     public LatestUploadBlobState copy() {
@@ -1,11 +1,10 @@
 package org.ivy.settlement.ethereum.model.settlement;
 
 import org.ivy.settlement.infrastructure.bytes.ByteArrayWrapper;
-import org.ivy.settlement.infrastructure.bytes.ByteUtil;
 import org.ivy.settlement.infrastructure.crypto.HashUtil;
 import org.ivy.settlement.infrastructure.datasource.model.Persistable;
 import org.ivy.settlement.infrastructure.rlp.RLP;
-import org.ivy.settlement.infrastructure.rlp.RLPList;
+import org.ivy.settlement.infrastructure.rlp.RLPView;
 import org.spongycastle.util.encoders.Hex;
 import org.web3j.abi.TypeEncoder;
 import org.web3j.abi.datatypes.generated.Int64;
@@ -94,7 +93,7 @@ public class FastPathBlock extends Persistable {
     }
 
     protected byte[] rlpEncoded() {
-        byte[][] encode = new byte[7][];
+        byte[][] encode = new byte[5][];
         encode[0] = RLP.encodeElement(this.parentHash);
         encode[1] = RLP.encodeBigInteger(BigInteger.valueOf(this.height));
         encode[2] = this.settlementBlockInfos.getEncoded();
@@ -105,13 +104,12 @@ public class FastPathBlock extends Persistable {
     }
 
     protected void rlpDecoded() {
-        RLPList params = RLP.decode2(rlpEncoded);
-        RLPList block = (RLPList) params.get(0);
-        this.parentHash = block.get(0).getRLPData();
-        this.height = ByteUtil.byteArrayToLong(block.get(1).getRLPData());
-        this.settlementBlockInfos = new SettlementBlockInfos(block.get(2).getRLPData());
-        this.extendRoot = block.get(3).getRLPData();
-        this.blockSign = new Signs(block.get(4).getRLPData());
+        var block = RLPView.of(rlpEncoded);
+        this.parentHash = block.get(0).bytes();
+        this.height = block.get(1).asLong();
+        this.settlementBlockInfos = new SettlementBlockInfos(block.get(2).encoded());
+        this.extendRoot = block.get(3).bytes();
+        this.blockSign = new Signs(block.get(4).encoded());
         this.hash = generateHash();
     }
 
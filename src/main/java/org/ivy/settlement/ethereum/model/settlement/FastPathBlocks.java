@@ -3,8 +3,7 @@ package org.ivy.settlement.ethereum.model.settlement;
 import org.apache.tuweni.bytes.Bytes;
 import org.ivy.settlement.infrastructure.datasource.model.Persistable;
 import org.ivy.settlement.infrastructure.rlp.RLP;
-import org.ivy.settlement.infrastructure.rlp.RLPElement;
-import org.ivy.settlement.infrastructure.rlp.RLPList;
+import org.ivy.settlement.infrastructure.rlp.RLPView;
 import org.web3j.crypto.Blob;
 
 import java.util.List;
@@ -58,11 +57,10 @@ public class FastPathBlocks extends Persistable {
 
     @Override
     protected void rlpDecoded() {
-        var params = RLP.decode2(rlpEncoded);
-        var blockSignRLP = (RLPList) params.get(0);
+        var blockSignRLP = RLPView.of(rlpEncoded);
         var fastPathBlocks = new TreeMap<Long, FastPathBlock>();
-        for (RLPElement rlpElement : blockSignRLP) {
-            var fastBlock = new FastPathBlock(rlpElement.getRLPData());
+        for (var i = 0; i < blockSignRLP.size(); i++) {
+            var fastBlock = new FastPathBlock(blockSignRLP.get(i).bytes());
             fastPathBlocks.put(fastBlock.getHeight(), fastBlock);
         }
         this.fastPathBlocks = fastPathBlocks;
@@ -3,7 +3,7 @@ package org.ivy.settlement.ethereum.model.settlement;
 import org.ivy.settlement.infrastructure.bytes.ByteUtil;
 import org.ivy.settlement.infrastructure.datasource.model.Persistable;
 import org.ivy.settlement.infrastructure.rlp.RLP;
-import org.ivy.settlement.infrastructure.rlp.RLPList;
+import org.ivy.settlement.infrastructure.rlp.RLPView;
 import org.spongycastle.util.encoders.Hex;
 
 /**
@@ -64,14 +64,13 @@ public class FollowerChainCrossBlock extends Persistable {
 
     @Override
     protected void rlpDecoded() {
-        var params = RLP.decode2(rlpEncoded);
-        var payload = (RLPList) params.get(0);
-        this.chain = ByteUtil.byteArrayToInt(payload.get(0).getRLPData());
-        this.blockHeight =  ByteUtil.byteArrayToLong(payload.get(1).getRLPData());
-        this.blockHash = payload.get(2).getRLPData();
+        var payload = RLPView.of(rlpEncoded);
+        this.chain = payload.get(0).asInt();
+        this.blockHeight =  payload.get(1).asLong();
+        this.blockHash = payload.get(2).bytes();
         var contents = new byte[payload.size() - 3][];
         for (var i = 0; i < contents.length; i++) {
-            contents[i] = payload.get(i + 3).getRLPData();
+            contents[i] = payload.get(i + 3).bytes();
         }
         this.contents = contents;
     }
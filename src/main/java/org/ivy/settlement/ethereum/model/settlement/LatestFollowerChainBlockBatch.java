@@ -1,9 +1,8 @@
 package org.ivy.settlement.ethereum.model.settlement;
 
-import org.ivy.settlement.infrastructure.bytes.ByteUtil;
 import org.ivy.settlement.infrastructure.rlp.RLP;
-import org.ivy.settlement.infrastructure.rlp.RLPList;
 import org.ivy.settlement.infrastructure.rlp.RLPModel;
+import org.ivy.settlement.infrastructure.rlp.RLPView;
 
 import java.math.BigInteger;
 import java.util.ArrayList;
@@ -51,14 +50,13 @@ public class LatestFollowerChainBlockBatch extends RLPModel {
     }
 
     protected void rlpDecoded() {
-        RLPList params = RLP.decode2(rlpEncoded);
-        RLPList block = (RLPList) params.get(0);
-        this.chain = ByteUtil.byteArrayToInt(block.get(0).getRLPData());
-        this.startNumber = ByteUtil.byteArrayToLong(block.get(1).getRLPData());
-        this.endNumber = ByteUtil.byteArrayToLong(block.get(2).getRLPData());
+        var block = RLPView.of(rlpEncoded);
+        this.chain = block.get(0).asInt();
+        this.startNumber = block.get(1).asLong();
+        this.endNumber = block.get(2).asLong();
         this.settlementBlockInfos = new ArrayList<>(block.size() - CODEC_OFFSET);
         for (var i = CODEC_OFFSET; i < block.size(); i++) {
-            this.settlementBlockInfos.add(new SettlementBlockInfo(block.get(i).getRLPData()));
+            this.settlementBlockInfos.add(new SettlementBlockInfo(block.get(i).encoded()));
         }
     }
 
@@ -1,10 +1,10 @@
 package org.ivy.settlement.ethereum.model.settlement;
 
-import org.ivy.settlement.infrastructure.bytes.ByteUtil;
+import org.ivy.settlement.infrastructure.datasource.AbstractDbSource;
 import org.ivy.settlement.infrastructure.datasource.model.CrossChainEvent;
 import org.ivy.settlement.infrastructure.datasource.model.Persistable;
 import org.ivy.settlement.infrastructure.rlp.RLP;
-import org.ivy.settlement.infrastructure.rlp.RLPList;
+import org.ivy.settlement.infrastructure.rlp.RLPView;
 
 import java.math.BigInteger;
 import java.util.ArrayList;
@@ -65,7 +65,7 @@ public class SettlementBlockInfo extends Persistable {
     }
 
     public byte[] storeKey() {
-        return ByteUtil.merge(ByteUtil.intToBytes(this.chain), ByteUtil.longToBytes(this.height));
+        return AbstractDbSource.chainKey(this.chain, this.height);
     }
 
     @Override
@@ -83,14 +83,14 @@ public class SettlementBlockInfo extends Persistable {
 
     @Override
     protected void rlpDecoded() {
-        RLPList rlpList = (RLPList) RLP.decode2(rlpEncoded).get(0);
-        this.chain = ByteUtil.byteArrayToInt(rlpList.get(0).getRLPData());
-        this.height = ByteUtil.byteArrayToLong(rlpList.get(1).getRLPData());
-        this.hash = rlpList.get(2).getRLPData();
-        this.receiptRoot = rlpList.get(3).getRLPData();
+        var rlpList = RLPView.of(rlpEncoded);
+        this.chain = rlpList.get(0).asInt();
+        this.height = rlpList.get(1).asLong();
+        this.hash = rlpList.get(2).bytes();
+        this.receiptRoot = rlpList.get(3).bytes();
         this.crossChainEvents = new ArrayList<>(rlpList.size() - CODEC_OFFSET);
         for (var i = CODEC_OFFSET; i < rlpList.size(); i++) {
-            this.crossChainEvents.add(new CrossChainEvent(rlpList.get(i).getRLPData()));
+            this.crossChainEvents.add(new CrossChainEvent(rlpList.get(i).encoded()));
         }
     }
 
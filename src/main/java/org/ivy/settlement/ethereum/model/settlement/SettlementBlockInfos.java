@@ -1,8 +1,8 @@
 package org.ivy.settlement.ethereum.model.settlement;
 
 import org.ivy.settlement.infrastructure.rlp.RLP;
-import org.ivy.settlement.infrastructure.rlp.RLPList;
 import org.ivy.settlement.infrastructure.rlp.RLPModel;
+import org.ivy.settlement.infrastructure.rlp.RLPView;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -51,11 +51,11 @@ public class SettlementBlockInfos extends RLPModel {
 
     @Override
     protected void rlpDecoded() {
-        var rlpDecode = (RLPList) RLP.decode2(this.rlpEncoded).get(0);
+        var rlpDecode = RLPView.of(this.rlpEncoded);
         var infoSize = rlpDecode.size();
         this.settlementBlockInfos = new TreeMap<>();
         for (var i = 0; i < infoSize; i++) {
-            var info = new SettlementBlockInfo(rlpDecode.get(i).getRLPData());
+            var info = new SettlementBlockInfo(rlpDecode.get(i).encoded());
             this.settlementBlockInfos.computeIfAbsent(info.getChain(), k -> new ArrayList<>()).add(info);
         }
     }
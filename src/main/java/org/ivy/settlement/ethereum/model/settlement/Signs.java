@@ -3,8 +3,7 @@ package org.ivy.settlement.ethereum.model.settlement;
 import org.ivy.settlement.infrastructure.bytes.ByteArrayWrapper;
 import org.ivy.settlement.infrastructure.datasource.model.Persistable;
 import org.ivy.settlement.infrastructure.rlp.RLP;
-import org.ivy.settlement.infrastructure.rlp.RLPList;
-import org.ivy.settlement.infrastructure.rlp.RLPElement;
+import org.ivy.settlement.infrastructure.rlp.RLPView;
 
 import java.util.Map;
 import java.util.TreeMap;
@@ -54,12 +53,11 @@ public class Signs extends Persistable {
 
     @Override
     protected void rlpDecoded() {
-        var params = RLP.decode2(rlpEncoded);
-        var blockSignRLP = (RLPList) params.get(0);
+        var blockSignRLP = RLPView.of(rlpEncoded);
         var signatures = new TreeMap<ByteArrayWrapper, Signature>();
-        for (RLPElement rlpElement : blockSignRLP) {
-            var kvBytes = (RLPList) RLP.decode2(rlpElement.getRLPData()).get(0);
-            signatures.put(new ByteArrayWrapper(kvBytes.get(0).getRLPData()), new Signature(kvBytes.get(1).getRLPData()));
+        for (var i = 0; i < blockSignRLP.size(); i++) {
+            var kvBytes = blockSignRLP.get(i);
+            signatures.put(new ByteArrayWrapper(kvBytes.get(0).bytes()), new Signature(kvBytes.get(1).bytes()));
         }
         this.signatures = signatures;
     }
@@ -1,9 +1,8 @@
 package org.ivy.settlement.follower.model;
 
-import org.ivy.settlement.infrastructure.bytes.ByteUtil;
 import org.ivy.settlement.infrastructure.datasource.model.Persistable;
 import org.ivy.settlement.infrastructure.rlp.RLP;
-import org.ivy.settlement.infrastructure.rlp.RLPList;
+import org.ivy.settlement.infrastructure.rlp.RLPView;
 
 import java.math.BigInteger;
 
@@ -37,9 +36,9 @@ public class FollowerChainSyncOffset extends Persistable {
 
     @Override
     protected void rlpDecoded() {
-        var payload = (RLPList) RLP.decode2(this.rlpEncoded).get(0);
-        this.chain = ByteUtil.byteArrayToInt(payload.get(0).getRLPData());
-        this.number =  ByteUtil.byteArrayToLong(payload.get(1).getRLPData());
+        var payload = RLPView.of(this.rlpEncoded);
+        this.chain = payload.get(0).asInt();
+        this.number =  payload.get(1).asLong();
     }
 
     public int getChain() {
@@ -393,6 +393,24 @@ public class ByteUtil {
         return (i >= startIndex || bytes[startIndex] != 0);
     }
 
+    /**
+     * Calculate the exclusive upper bound of all keys starting with the given prefix,
+     * that is the prefix with its last non 0xff byte incremented and the trailing 0xff bytes dropped.
+     *
+     * @param prefix byte[]
+     * @return upper bound, or null when the prefix is empty or consists of 0xff bytes only
+     */
+    public static byte[] prefixUpperBound(byte[] prefix) {
+        for (int i = prefix.length - 1; i >= 0; i--) {
+            if (prefix[i] != (byte) 0xff) {
+                byte[] result = Arrays.copyOf(prefix, i + 1);
+                result[i]++;
+                return result;
+            }
+        }
+        return null;
+    }
+
     /**
      * Utility function to copy a byte array into a new byte array with given blockSize.
      * If the src length is smaller than the given blockSize, the result will be left-padded
@@ -0,0 +1,269 @@
+package org.ivy.settlement.infrastructure.collections;
+
+import org.ivy.settlement.infrastructure.datasource.MemSizeEstimator;
+
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * description: LRU cache bounded by the estimated memory of its entries instead of their count.
+ * entries are spread over lock striped segments which share one budget, an insert evicts the least
+ * recently used entries of its own segment first and of the other segments when that is not enough,
+ * so a single value may take up to the whole budget.
+ *
+ * every invalidation bumps the generation of its segment, a reader which loaded a value
+ * from the backing store only publishes it through {@link #putIfGeneration} when no
+ * invalidation happened meanwhile, so a slow reader can not resurrect a stale value.
+ * @author carrot
+ */
+public class WeightedLRUCache<K, V> {
+
+    private static final int SEGMENT_COUNT = 16;
+
+    final Segment<K, V>[] segments;
+
+    final MemSizeEstimator<K> keyEstimator;
+
+    final MemSizeEstimator<V> valueEstimator;
+
+    final long maxBytes;
+
+    // estimated bytes of all segments
+    final AtomicLong bytes = new AtomicLong();
+
+    final LongAdder hits = new LongAdder();
+
+    final LongAdder misses = new LongAdder();
+
+    final LongAdder evictions = new LongAdder();
+
+    @SuppressWarnings("unchecked")
+    public WeightedLRUCache(long maxBytes, MemSizeEstimator<K> keyEstimator, MemSizeEstimator<V> valueEstimator) {
+        this.maxBytes = maxBytes;
+        this.keyEstimator = keyEstimator;
+        this.valueEstimator = valueEstimator;
+        this.segments = new Segment[SEGMENT_COUNT];
+        for (var i = 0; i < SEGMENT_COUNT; i++) {
+            this.segments[i] = new Segment<>(this);
+        }
+    }
+
+    public V get(K key) {
+        var segment = segmentFor(key);
+        V value;
+        segment.lock.lock();
+        try {
+            var entry = segment.map.get(key);
+            value = entry == null ? null : entry.value;
+        } finally {
+            segment.lock.unlock();
+        }
+
+        if (value == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return value;
+    }
+
+    /**
+     * read the generation of the key's segment before loading the key from the backing store.
+     */
+    public long generation(K key) {
+        return segmentFor(key).generation;
+    }
+
+    /**
+     * publish a value loaded from the backing store, dropped when the segment was invalidated after generation was read.
+     */
+    public void putIfGeneration(K key, V value, long generation) {
+        var segment = segmentFor(key);
+        var weight = keyEstimator.estimateSize(key) + valueEstimator.estimateSize(value);
+        if (weight > maxBytes) return;
+        segment.lock.lock();
+        try {
+            if (segment.generation != generation) return;
+            var old = segment.map.put(key, new Entry<>(value, weight));
+            segment.add(weight - (old == null ? 0 : old.weight));
+            evictions.add(segment.evict(key));
+        } finally {
+            segment.lock.unlock();
+        }
+        for (var i = 0; i < SEGMENT_COUNT && bytes.get() > maxBytes; i++) {
+            var other = segments[i];
+            if (other == segment) continue;
+            other.lock.lock();
+            try {
+                evictions.add(other.evict(null));
+            } finally {
+                other.lock.unlock();
+            }
+        }
+    }
+
+    public void invalidate(K key) {
+        var segment = segmentFor(key);
+        segment.lock.lock();
+        try {
+            segment.generation++;
+            var old = segment.map.remove(key);
+            if (old != null) segment.add(-old.weight);
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    public void invalidateIf(Predicate<K> predicate) {
+        for (var segment : segments) {
+            segment.lock.lock();
+            try {
+                segment.generation++;
+                var it = segment.map.entrySet().iterator();
+                while (it.hasNext()) {
+                    var entry = it.next();
+                    if (predicate.test(entry.getKey())) {
+                        segment.add(-entry.getValue().weight);
+                        it.remove();
+                    }
+                }
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+    }
+
+    public Stats stats() {
+        var entries = 0L;
+        for (var segment : segments) {
+            segment.lock.lock();
+            try {
+                entries += segment.map.size();
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        return new Stats(maxBytes, bytes.get(), entries, hits.sum(), misses.sum(), evictions.sum());
+    }
+
+    private Segment<K, V> segmentFor(K key) {
+        var h = key.hashCode();
+        h ^= (h >>> 16);
+        return segments[h & (SEGMENT_COUNT - 1)];
+    }
+
+    static class Entry<V> {
+
+        final V value;
+
+        final long weight;
+
+        Entry(V value, long weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    static class Segment<K, V> {
+
+        final ReentrantLock lock = new ReentrantLock();
+
+        final LinkedHashMap<K, Entry<V>> map = new LinkedHashMap<>(16, 0.75f, true);
+
+        final WeightedLRUCache<K, V> cache;
+
+        volatile long generation;
+
+        Segment(WeightedLRUCache<K, V> cache) {
+            this.cache = cache;
+        }
+
+        // caller holds the lock
+        void add(long weight) {
+            cache.bytes.addAndGet(weight);
+        }
+
+        // caller holds the lock, drops least recently used entries until the shared budget fits, never keep
+        int evict(K keep) {
+            var evicted = 0;
+            var it = map.entrySet().iterator();
+            while (cache.bytes.get() > cache.maxBytes && it.hasNext()) {
+                var entry = it.next();
+                if (entry.getKey().equals(keep)) continue;
+                add(-entry.getValue().weight);
+                it.remove();
+                evicted++;
+            }
+            return evicted;
+        }
+    }
+
+    public static class Stats {
+
+        final long maxBytes;
+
+        final long bytes;
+
+        final long entries;
+
+        final long hit;
+
+        final long miss;
+
+        final long evictions;
+
+        public Stats(long maxBytes, long bytes, long entries, long hit, long miss, long evictions) {
+            this.maxBytes = maxBytes;
+            this.bytes = bytes;
+            this.entries = entries;
+            this.hit = hit;
+            this.miss = miss;
+            this.evictions = evictions;
+        }
+
+        public long getMaxBytes() {
+            return maxBytes;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getEntries() {
+            return entries;
+        }
+
+        public long getHit() {
+            return hit;
+        }
+
+        public long getMiss() {
+            return miss;
+        }
+
+        public long getEvictions() {
+            return evictions;
+        }
+
+        public double hitRatio() {
+            var total = hit + miss;
+            return total == 0 ? 0 : (double) hit / total;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "maxBytes=" + maxBytes +
+                    ", bytes=" + bytes +
+                    ", entries=" + entries +
+                    ", hit=" + hit +
+                    ", miss=" + miss +
+                    ", hitRatio=" + String.format("%.4f", hitRatio()) +
+                    ", evictions=" + evictions +
+                    '}';
+        }
+    }
+}
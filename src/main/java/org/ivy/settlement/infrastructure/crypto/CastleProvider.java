@@ -20,11 +20,11 @@ public final class CastleProvider {
 
             BOUNCY_INSTANCE = new BouncyCastleProvider();
 
-            SPONGY_INSTANCE.put("MessageDigest.ETH-KECCAK-256", "cryptohash.crypto.infrastructure.org.ivy.settlement.Keccak256");
+            SPONGY_INSTANCE.put("MessageDigest.ETH-KECCAK-256", "org.ivy.settlement.infrastructure.crypto.cryptohash.Keccak256");
 
-            SPONGY_INSTANCE.put("MessageDigest.ETH-KECCAK-256-LIGHT", "cryptohash.crypto.infrastructure.org.ivy.settlement.Keccak256Light");
+            SPONGY_INSTANCE.put("MessageDigest.ETH-KECCAK-256-LIGHT", "org.ivy.settlement.infrastructure.crypto.cryptohash.Keccak256Light");
 
-            SPONGY_INSTANCE.put("MessageDigest.ETH-KECCAK-512", "cryptohash.crypto.infrastructure.org.ivy.settlement.Keccak512");
+            SPONGY_INSTANCE.put("MessageDigest.ETH-KECCAK-512", "org.ivy.settlement.infrastructure.crypto.cryptohash.Keccak512");
 
             //jdk1.8 此处替换是为了确保java.security中的provider列表正确（即用BC库替换SunEC）。
             // 如果不删除SunEC，只在表尾加BC库，那么SunEC顺序在BC库之前，结果是在国密tls中，优先使用SunEC识别国密曲线，导致识别失败。，
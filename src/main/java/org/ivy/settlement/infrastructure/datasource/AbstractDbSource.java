@@ -2,17 +2,18 @@ package org.ivy.settlement.infrastructure.datasource;
 
 
 import org.apache.commons.lang3.tuple.Pair;
+import org.ivy.settlement.infrastructure.bytes.ByteUtil;
 import org.ivy.settlement.infrastructure.datasource.model.Keyable;
 import org.ivy.settlement.infrastructure.datasource.model.Persistable;
 import org.ivy.settlement.infrastructure.datasource.rocksdb.WriteBatchFactory;
 import org.rocksdb.ColumnFamilyHandle;
 import org.rocksdb.RocksDB;
 
-import java.lang.reflect.Constructor;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * description:
@@ -32,9 +33,9 @@ public abstract class AbstractDbSource {
 
     public final Map<Class<? extends Persistable>, ColumnFamilyHandle> clazz2HandleTable = new HashMap<>();
 
-    public final Map<Class<? extends Persistable>, Constructor> clazz2ConstructorTable = new HashMap<>();
+    public final CodecRegistry codecRegistry = new CodecRegistry();
 
-    public abstract Persistable get(Class<?> model, Keyable keyable);
+    public abstract <T extends Persistable> T get(Class<T> model, Keyable keyable);
 
     public abstract byte[] getRaw(Class<?> model, Keyable keyable);
 
@@ -44,5 +45,35 @@ public abstract class AbstractDbSource {
 
     public abstract void updateBatch(List<Pair<Keyable, Persistable>> saveBatch);
 
+    /**
+     * load every value of the model into memory, prefer {@link #scan} for large column families.
+     */
     public abstract List<Persistable> getAll(Class<?> model);
+
+    /**
+     * lazily iterate the values of the model whose key is in [from, to) by unsigned byte order,
+     * a null bound means unbounded. the stream holds native resources, close it with try-with-resources.
+     */
+    public abstract <T extends Persistable> Stream<T> scan(Class<T> model, byte[] from, byte[] to);
+
+    /**
+     * lazily iterate the values of the model whose key starts with prefix,
+     * the stream must be closed like {@link #scan}.
+     */
+    public abstract <T extends Persistable> Stream<T> scanPrefix(Class<T> model, byte[] prefix);
+
+    /**
+     * lazily iterate the values of one chain with height in [fromHeight, toHeight],
+     * for models stored under {@link #chainKey} keys. the stream must be closed like {@link #scan}.
+     */
+    public <T extends Persistable> Stream<T> scanChain(Class<T> model, int chain, long fromHeight, long toHeight) {
+        return scan(model, chainKey(chain, fromHeight), ByteUtil.prefixUpperBound(chainKey(chain, toHeight)));
+    }
+
+    /**
+     * composite (chain, height) key, the 4 bytes chain id is the prefix shared by all the blocks of a chain.
+     */
+    public static byte[] chainKey(int chain, long height) {
+        return KeyEncoder.chainHeight(chain, height);
+    }
 }
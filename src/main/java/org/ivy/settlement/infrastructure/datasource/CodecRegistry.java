@@ -0,0 +1,83 @@
+package org.ivy.settlement.infrastructure.datasource;
+
+import org.ivy.settlement.infrastructure.datasource.model.Persistable;
+
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * description: maps every Persistable model to the factory which decodes it from its stored bytes.
+ * the default factory is a lambda spun from the model's (byte[]) constructor, so reads go
+ * through a plain monomorphic call the JIT can inline instead of Constructor.newInstance.
+ * @author carrot
+ */
+public class CodecRegistry {
+
+    private static final MethodType DECODER_TYPE = MethodType.methodType(void.class, byte[].class);
+
+    private final Map<Class<? extends Persistable>, Function<byte[], ? extends Persistable>> decoders = new ConcurrentHashMap<>();
+
+    /**
+     * register an explicit decoder for the model, replacing any previous one.
+     */
+    public <T extends Persistable> void register(Class<T> model, Function<byte[], T> decoder) {
+        this.decoders.put(model, decoder);
+    }
+
+    /**
+     * register the (byte[]) constructor of the model as its decoder, unless one was registered already.
+     */
+    public <T extends Persistable> void registerDefault(Class<T> model) {
+        this.decoders.computeIfAbsent(model, CodecRegistry::constructorDecoder);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T extends Persistable> Function<byte[], T> decoder(Class<T> model) {
+        var decoder = (Function<byte[], T>) this.decoders.get(model);
+        if (decoder == null) {
+            throw new IllegalArgumentException("no codec registered for " + model.getName());
+        }
+        return decoder;
+    }
+
+    public <T extends Persistable> T decode(Class<T> model, byte[] bytes) {
+        return bytes == null ? null : decoder(model).apply(bytes);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends Persistable> Function<byte[], T> constructorDecoder(Class<T> model) {
+        MethodHandle constructor;
+        try {
+            constructor = MethodHandles.publicLookup().findConstructor(model, DECODER_TYPE);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException(model.getName() + " has no public (byte[]) constructor", e);
+        }
+
+        try {
+            var lookup = MethodHandles.lookup();
+            var callSite = LambdaMetafactory.metafactory(
+                    lookup,
+                    "apply",
+                    MethodType.methodType(Function.class),
+                    MethodType.methodType(Object.class, Object.class),
+                    constructor,
+                    MethodType.methodType(model, byte[].class));
+            return (Function<byte[], T>) callSite.getTarget().invokeExact();
+        } catch (Throwable e) {
+            // the model is not reachable for a generated lambda (e.g. another class loader), keep the handle
+            var handle = constructor.asType(MethodType.methodType(Persistable.class, byte[].class));
+            return bytes -> {
+                try {
+                    return (T) (Persistable) handle.invokeExact(bytes);
+                } catch (Throwable t) {
+                    throw new RuntimeException(t);
+                }
+            };
+        }
+    }
+}
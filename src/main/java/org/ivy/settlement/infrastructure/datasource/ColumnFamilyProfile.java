@@ -0,0 +1,25 @@
+package org.ivy.settlement.infrastructure.datasource;
+
+/**
+ * description: named tuning profiles a column family can be opened with,
+ * each one sets its own memtable, compaction style, bloom filter and compression.
+ * @author carrot
+ */
+public enum ColumnFamilyProfile {
+
+    // the shared settings of DbSettings and level compaction, snappy (the rocksdb default)
+    // unless ColumnFamilySettings.compression is set
+    DEFAULT,
+
+    // random point reads of keys which mostly exist: memtables are flushed one by one so few have to be probed,
+    // whole key bloom, hash index inside data blocks, small blocks, lz4
+    POINT_LOOKUP,
+
+    // large values appended under monotonically increasing keys: big memtables flushed one by one,
+    // dynamic level sizing so sorted runs are moved instead of rewritten, lz4 on upper levels and zstd at the bottom
+    APPEND_LOG,
+
+    // a handful of small keys overwritten all the time: tiny memtables, universal compaction
+    // to keep write amplification low, whole key bloom and no compression
+    SMALL_HOT_SET
+}
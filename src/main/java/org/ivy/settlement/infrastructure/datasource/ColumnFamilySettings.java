@@ -0,0 +1,299 @@
+package org.ivy.settlement.infrastructure.datasource;
+
+/**
+ * description: settings of a single column family, attached to its Persistable class through
+ * {@link DbSettings#withColumnFamily}. column families without explicit settings use {@link #DEFAULT}.
+ * @author carrot
+ */
+public class ColumnFamilySettings {
+
+    public static final ColumnFamilySettings DEFAULT = new ColumnFamilySettings()
+            .withProfile(ColumnFamilyProfile.DEFAULT)
+            .withPrefixLength(0)
+            .withObjectCacheSize(0)
+            .withCompression(null)
+            .withBottommostCompression(null)
+            .withUncompressedLevels(0)
+            .withZstdDictionarySize(0)
+            .withBlobFiles(false)
+            .withMinBlobSize(64 * 1024)
+            .withBlobFileSize(256 * 1024 * 1024)
+            .withBlobGcAgeCutoff(0.25)
+            .withBlobGcForceThreshold(1.0)
+            .withKeyLayout(KeyLayout.HEIGHT)
+            .withRetainHeights(0)
+            .withMergeOperator(MergeOperator.NONE)
+            .withDurability(Durability.SYNC)
+            .withEncrypted(false);
+
+    public enum KeyLayout {
+        // 8 bytes height, e.g. BeaconBlockRecord
+        HEIGHT,
+        // AbstractDbSource.chainKey, 4 bytes chain id followed by 8 bytes height
+        CHAIN_HEIGHT
+    }
+
+    /**
+     * ordered from the strongest to the weakest guarantee, a batch touching several
+     * column families is written with the strongest level among them
+     */
+    public enum Durability {
+        // WAL synced before the write returns, survives process and machine crash
+        SYNC,
+        // same guarantee as SYNC, concurrent writers share one fsync through the group commit writer
+        GROUP_SYNC,
+        // WAL written but synced every DbSettings.walFlushInterval millis, a process crash loses nothing,
+        // a machine crash loses at most the last interval
+        ASYNC,
+        // no WAL, the memtable is flushed on shutdown, any crash loses every write since the last flush.
+        // only for data which can be fetched again, e.g. from the beacon and execution nodes
+        NO_WAL
+    }
+
+    public enum MergeOperator {
+        NONE,
+        // 8 bytes little endian unsigned counters, operands are added. the model must be a UInt64Counter
+        UINT64_ADD,
+        // bytewise maximum, i.e. the highest of 8 bytes big endian values. the model must be a UInt64Max
+        MAX,
+        // values are rlp lists, every operand is one rlp item appended to the list
+        RLP_LIST_APPEND
+    }
+
+    public enum Compression {
+        NONE,
+        SNAPPY,
+        LZ4,
+        ZSTD
+    }
+
+    // length of the fixed key prefix, e.g. the chain id of (chain, height) keys.
+    // when positive a prefix extractor and prefix bloom are installed and prefix seeks become possible, 0 disables it
+    public static final int CHAIN_PREFIX_LENGTH = Integer.BYTES;
+
+    public static final int SLOTS_PER_EPOCH = 32;
+
+    ColumnFamilyProfile profile;
+
+    int prefixLength;
+
+    // bytes of decoded values kept in front of the column family, 0 disables the object cache.
+    // a hit returns the cached instance without decoding, so the model has to implement Immutable.
+    // the chain column families of the model are not cached, getFromChain always reads rocksdb
+    long objectCacheSize;
+
+    // compression of every level above the bottommost one, null keeps the choice of the profile
+    Compression compression;
+    // compression of the bottommost level, which holds most of the data, null keeps the choice of the profile
+    Compression bottommostCompression;
+    // the first levels are rewritten soon by compaction, compressing them is mostly wasted cpu
+    int uncompressedLevels;
+    // bytes of the zstd dictionary trained per bottommost sst file from sampled blocks, 0 disables it.
+    // only used when bottommostCompression is ZSTD
+    int zstdDictionarySize;
+
+    // values of at least minBlobSize bytes are written to blob files and only a reference stays in the sst,
+    // compactions then move the small reference instead of rewriting the value
+    boolean blobFiles;
+    long minBlobSize;
+    long blobFileSize;
+    // blob files in the oldest blobGcAgeCutoff fraction are relocated by compaction to reclaim garbage
+    double blobGcAgeCutoff;
+    // garbage ratio of the oldest blob files which forces a compaction of the files referencing them, 1.0 disables it
+    double blobGcForceThreshold;
+
+    // how the height is encoded in the keys of the column family, read by the retention service
+    KeyLayout keyLayout;
+    // number of the newest heights kept (per chain for CHAIN_HEIGHT), older ones are pruned in background, 0 keeps everything
+    long retainHeights;
+
+    // lets RocksDbSource.merge replace get, decode, encode and put by one blind write
+    MergeOperator mergeOperator;
+
+    Durability durability;
+
+    // values are sealed with AES-GCM under DbSettings.encryptionKey, keys stay in clear for ordering and seeks
+    boolean encrypted;
+
+    private ColumnFamilySettings() {
+    }
+
+    public static ColumnFamilySettings newInstance() {
+        var settings = new ColumnFamilySettings();
+        settings.profile = DEFAULT.profile;
+        settings.prefixLength = DEFAULT.prefixLength;
+        settings.objectCacheSize = DEFAULT.objectCacheSize;
+        settings.compression = DEFAULT.compression;
+        settings.bottommostCompression = DEFAULT.bottommostCompression;
+        settings.uncompressedLevels = DEFAULT.uncompressedLevels;
+        settings.zstdDictionarySize = DEFAULT.zstdDictionarySize;
+        settings.blobFiles = DEFAULT.blobFiles;
+        settings.minBlobSize = DEFAULT.minBlobSize;
+        settings.blobFileSize = DEFAULT.blobFileSize;
+        settings.blobGcAgeCutoff = DEFAULT.blobGcAgeCutoff;
+        settings.blobGcForceThreshold = DEFAULT.blobGcForceThreshold;
+        settings.keyLayout = DEFAULT.keyLayout;
+        settings.retainHeights = DEFAULT.retainHeights;
+        settings.mergeOperator = DEFAULT.mergeOperator;
+        settings.durability = DEFAULT.durability;
+        settings.encrypted = DEFAULT.encrypted;
+        return settings;
+    }
+
+    public static ColumnFamilySettings of(ColumnFamilyProfile profile) {
+        return newInstance().withProfile(profile);
+    }
+
+    public ColumnFamilyProfile getProfile() {
+        return profile;
+    }
+
+    public ColumnFamilySettings withProfile(ColumnFamilyProfile profile) {
+        this.profile = profile;
+        return this;
+    }
+
+    public int getPrefixLength() {
+        return prefixLength;
+    }
+
+    public ColumnFamilySettings withPrefixLength(int prefixLength) {
+        this.prefixLength = prefixLength;
+        return this;
+    }
+
+    public long getObjectCacheSize() {
+        return objectCacheSize;
+    }
+
+    public ColumnFamilySettings withObjectCacheSize(long objectCacheSize) {
+        this.objectCacheSize = objectCacheSize;
+        return this;
+    }
+
+    public Compression getCompression() {
+        return compression;
+    }
+
+    public ColumnFamilySettings withCompression(Compression compression) {
+        this.compression = compression;
+        return this;
+    }
+
+    public Compression getBottommostCompression() {
+        return bottommostCompression;
+    }
+
+    public ColumnFamilySettings withBottommostCompression(Compression bottommostCompression) {
+        this.bottommostCompression = bottommostCompression;
+        return this;
+    }
+
+    public int getUncompressedLevels() {
+        return uncompressedLevels;
+    }
+
+    public ColumnFamilySettings withUncompressedLevels(int uncompressedLevels) {
+        this.uncompressedLevels = uncompressedLevels;
+        return this;
+    }
+
+    public int getZstdDictionarySize() {
+        return zstdDictionarySize;
+    }
+
+    public ColumnFamilySettings withZstdDictionarySize(int zstdDictionarySize) {
+        this.zstdDictionarySize = zstdDictionarySize;
+        return this;
+    }
+
+    public boolean isBlobFiles() {
+        return blobFiles;
+    }
+
+    public ColumnFamilySettings withBlobFiles(boolean blobFiles) {
+        this.blobFiles = blobFiles;
+        return this;
+    }
+
+    public long getMinBlobSize() {
+        return minBlobSize;
+    }
+
+    public ColumnFamilySettings withMinBlobSize(long minBlobSize) {
+        this.minBlobSize = minBlobSize;
+        return this;
+    }
+
+    public long getBlobFileSize() {
+        return blobFileSize;
+    }
+
+    public ColumnFamilySettings withBlobFileSize(long blobFileSize) {
+        this.blobFileSize = blobFileSize;
+        return this;
+    }
+
+    public double getBlobGcAgeCutoff() {
+        return blobGcAgeCutoff;
+    }
+
+    public ColumnFamilySettings withBlobGcAgeCutoff(double blobGcAgeCutoff) {
+        this.blobGcAgeCutoff = blobGcAgeCutoff;
+        return this;
+    }
+
+    public double getBlobGcForceThreshold() {
+        return blobGcForceThreshold;
+    }
+
+    public ColumnFamilySettings withBlobGcForceThreshold(double blobGcForceThreshold) {
+        this.blobGcForceThreshold = blobGcForceThreshold;
+        return this;
+    }
+
+    public KeyLayout getKeyLayout() {
+        return keyLayout;
+    }
+
+    public ColumnFamilySettings withKeyLayout(KeyLayout keyLayout) {
+        this.keyLayout = keyLayout;
+        return this;
+    }
+
+    public long getRetainHeights() {
+        return retainHeights;
+    }
+
+    public ColumnFamilySettings withRetainHeights(long retainHeights) {
+        this.retainHeights = retainHeights;
+        return this;
+    }
+
+    public MergeOperator getMergeOperator() {
+        return mergeOperator;
+    }
+
+    public ColumnFamilySettings withMergeOperator(MergeOperator mergeOperator) {
+        this.mergeOperator = mergeOperator;
+        return this;
+    }
+
+    public Durability getDurability() {
+        return durability;
+    }
+
+    public ColumnFamilySettings withDurability(Durability durability) {
+        this.durability = durability;
+        return this;
+    }
+
+    public boolean isEncrypted() {
+        return encrypted;
+    }
+
+    public ColumnFamilySettings withEncrypted(boolean encrypted) {
+        this.encrypted = encrypted;
+        return this;
+    }
+}
@@ -17,6 +17,11 @@
  */
 package org.ivy.settlement.infrastructure.datasource;
 
+import org.ivy.settlement.infrastructure.datasource.model.Persistable;
+
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Defines configurable database settings
  *
@@ -29,7 +34,34 @@ public class DbSettings {
             .withMaxThreads(8)
             .withMaxOpenFiles(10000)
             .withWriteBufferSize(64)
-            .withBloomFilterFlag(false);
+            .withBloomFilterFlag(false)
+            .withGroupCommit(false)
+            .withGroupCommitWindowMicros(1000)
+            .withGroupCommitMaxBytes(4 * 1024 * 1024)
+            .withBlockCacheType(BlockCacheType.LRU)
+            .withBlockCacheSize(256)
+            .withBlockCacheShardBits(-1)
+            .withCacheIndexAndFilterBlocks(true)
+            .withPinL0FilterAndIndexBlocks(true)
+            .withPartitionedIndexFilters(false)
+            .withMetricsInterval(10)
+            .withPruneInterval(60)
+            .withPruneChunkHeights(10000)
+            .withPruneChunkPauseMillis(100)
+            .withOptimisticTransactions(false)
+            .withTransactionMaxRetries(16)
+            .withWalFlushInterval(1000)
+            .withSecondaryCatchUpInterval(1000)
+            .withRateLimit(0)
+            .withRateLimitAutoTune(true)
+            .withBackpressureThreshold(0.5)
+            .withBackpressureInterval(200)
+            .withEncryptionKey(null);
+
+    public enum BlockCacheType {
+        LRU,
+        HYPER_CLOCK
+    }
 
     // defines a number of opened files by db instance
     // this number has significant impact on read amplification
@@ -40,6 +72,64 @@ public class DbSettings {
     int writeBufferSize; //M
     boolean bloomFilterFlag;
 
+    // when enabled, concurrent writers share one synced WriteBatch instead of paying an fsync each
+    boolean groupCommit;
+    // how long the committer waits for more writers after the first one arrived
+    long groupCommitWindowMicros;
+    // a group is committed as soon as its pending key/value bytes reach this budget
+    long groupCommitMaxBytes;
+
+    // one block cache is shared by all column families of a db instance.
+    // the defaults changed with it: before, every column family had its own internal cache of rocksdb
+    // (32M each) and kept its index and filter blocks in memory outside of any limit. now all column
+    // families share 256M, index and filter blocks included and evicted last, and the L0 ones are pinned.
+    // a db with more than 8 column families gets less block cache in total than before, in exchange the
+    // index and filter memory is bounded. withBlockCacheSize(32 * column families).withCacheIndexAndFilterBlocks(false)
+    // .withPinL0FilterAndIndexBlocks(false) comes closest to the old behaviour
+    BlockCacheType blockCacheType;
+    long blockCacheSize; //M
+    // -1 lets rocksdb pick the shard count from the capacity
+    int blockCacheShardBits;
+    // charge index and filter blocks to the block cache instead of keeping them on the heap unbounded
+    boolean cacheIndexAndFilterBlocks;
+    boolean pinL0FilterAndIndexBlocks;
+    // two level index and partitioned filters, only the top level is pinned
+    boolean partitionedIndexFilters;
+
+    // seconds between two samples pushed to the metrics publishers, 0 disables the collector
+    int metricsInterval;
+
+    // seconds between two rounds of the retention service over the column families with ColumnFamilySettings.retainHeights > 0
+    int pruneInterval;
+    // heights removed by one deleteRange
+    long pruneChunkHeights;
+    // pause between two chunks, so pruning does not compete with foreground writes
+    long pruneChunkPauseMillis;
+
+    // open the db as OptimisticTransactionDB, required by RocksDbSource.transaction
+    boolean optimisticTransactions;
+    // retries of a transaction which failed on a write conflict
+    int transactionMaxRetries;
+
+    // millis between two WAL syncs for the column families with ColumnFamilySettings.Durability.ASYNC
+    long walFlushInterval;
+
+    // millis between two catch ups of a secondary instance with its primary
+    long secondaryCatchUpInterval;
+
+    // MB/s of flush and compaction writes, 0 disables the rate limiter
+    long rateLimit;
+    // let rocksdb move the limit between rateLimit / 20 and rateLimit according to the pending work
+    boolean rateLimitAutoTune;
+    // share of the soft compaction and L0 limits from which producers are asked to slow down
+    double backpressureThreshold;
+    // millis between two samples for the backpressure listeners
+    long backpressureInterval;
+    // 16, 24 or 32 bytes AES key of the column families with ColumnFamilySettings.encrypted, null when none is encrypted
+    byte[] encryptionKey;
+
+    Map<Class<? extends Persistable>, ColumnFamilySettings> columnFamilySettings = new HashMap<>();
+
     private DbSettings() {
     }
 
@@ -49,6 +139,29 @@ public class DbSettings {
         settings.maxThreads = DEFAULT.maxThreads;
         settings.writeBufferSize = DEFAULT.writeBufferSize;
         settings.bloomFilterFlag = DEFAULT.bloomFilterFlag;
+        settings.groupCommit = DEFAULT.groupCommit;
+        settings.groupCommitWindowMicros = DEFAULT.groupCommitWindowMicros;
+        settings.groupCommitMaxBytes = DEFAULT.groupCommitMaxBytes;
+        settings.blockCacheType = DEFAULT.blockCacheType;
+        settings.blockCacheSize = DEFAULT.blockCacheSize;
+        settings.blockCacheShardBits = DEFAULT.blockCacheShardBits;
+        settings.cacheIndexAndFilterBlocks = DEFAULT.cacheIndexAndFilterBlocks;
+        settings.pinL0FilterAndIndexBlocks = DEFAULT.pinL0FilterAndIndexBlocks;
+        settings.partitionedIndexFilters = DEFAULT.partitionedIndexFilters;
+        settings.metricsInterval = DEFAULT.metricsInterval;
+        settings.pruneInterval = DEFAULT.pruneInterval;
+        settings.pruneChunkHeights = DEFAULT.pruneChunkHeights;
+        settings.pruneChunkPauseMillis = DEFAULT.pruneChunkPauseMillis;
+        settings.optimisticTransactions = DEFAULT.optimisticTransactions;
+        settings.transactionMaxRetries = DEFAULT.transactionMaxRetries;
+        settings.walFlushInterval = DEFAULT.walFlushInterval;
+        settings.secondaryCatchUpInterval = DEFAULT.secondaryCatchUpInterval;
+        settings.rateLimit = DEFAULT.rateLimit;
+        settings.rateLimitAutoTune = DEFAULT.rateLimitAutoTune;
+        settings.backpressureThreshold = DEFAULT.backpressureThreshold;
+        settings.backpressureInterval = DEFAULT.backpressureInterval;
+        settings.encryptionKey = DEFAULT.encryptionKey;
+        settings.columnFamilySettings = new HashMap<>(DEFAULT.columnFamilySettings);
         return settings;
     }
 
@@ -87,4 +200,280 @@ public class DbSettings {
         this.bloomFilterFlag = bloomFilterFlag;
         return this;
     }
+
+    public boolean isGroupCommit() {
+        return groupCommit;
+    }
+
+    public DbSettings withGroupCommit(boolean groupCommit) {
+        this.groupCommit = groupCommit;
+        return this;
+    }
+
+    public long getGroupCommitWindowMicros() {
+        return groupCommitWindowMicros;
+    }
+
+    public DbSettings withGroupCommitWindowMicros(long groupCommitWindowMicros) {
+        this.groupCommitWindowMicros = groupCommitWindowMicros;
+        return this;
+    }
+
+    public long getGroupCommitMaxBytes() {
+        return groupCommitMaxBytes;
+    }
+
+    public DbSettings withGroupCommitMaxBytes(long groupCommitMaxBytes) {
+        this.groupCommitMaxBytes = groupCommitMaxBytes;
+        return this;
+    }
+
+    public BlockCacheType getBlockCacheType() {
+        return blockCacheType;
+    }
+
+    public DbSettings withBlockCacheType(BlockCacheType blockCacheType) {
+        this.blockCacheType = blockCacheType;
+        return this;
+    }
+
+    public long getBlockCacheSize() {
+        return blockCacheSize;
+    }
+
+    public DbSettings withBlockCacheSize(long blockCacheSize) {
+        this.blockCacheSize = blockCacheSize;
+        return this;
+    }
+
+    public int getBlockCacheShardBits() {
+        return blockCacheShardBits;
+    }
+
+    public DbSettings withBlockCacheShardBits(int blockCacheShardBits) {
+        this.blockCacheShardBits = blockCacheShardBits;
+        return this;
+    }
+
+    public boolean isCacheIndexAndFilterBlocks() {
+        return cacheIndexAndFilterBlocks;
+    }
+
+    public DbSettings withCacheIndexAndFilterBlocks(boolean cacheIndexAndFilterBlocks) {
+        this.cacheIndexAndFilterBlocks = cacheIndexAndFilterBlocks;
+        return this;
+    }
+
+    public boolean isPinL0FilterAndIndexBlocks() {
+        return pinL0FilterAndIndexBlocks;
+    }
+
+    public DbSettings withPinL0FilterAndIndexBlocks(boolean pinL0FilterAndIndexBlocks) {
+        this.pinL0FilterAndIndexBlocks = pinL0FilterAndIndexBlocks;
+        return this;
+    }
+
+    public boolean isPartitionedIndexFilters() {
+        return partitionedIndexFilters;
+    }
+
+    public DbSettings withPartitionedIndexFilters(boolean partitionedIndexFilters) {
+        this.partitionedIndexFilters = partitionedIndexFilters;
+        return this;
+    }
+
+    public int getMetricsInterval() {
+        return metricsInterval;
+    }
+
+    public DbSettings withMetricsInterval(int metricsInterval) {
+        this.metricsInterval = metricsInterval;
+        return this;
+    }
+
+    public int getPruneInterval() {
+        return pruneInterval;
+    }
+
+    public DbSettings withPruneInterval(int pruneInterval) {
+        this.pruneInterval = pruneInterval;
+        return this;
+    }
+
+    public long getPruneChunkHeights() {
+        return pruneChunkHeights;
+    }
+
+    public DbSettings withPruneChunkHeights(long pruneChunkHeights) {
+        this.pruneChunkHeights = pruneChunkHeights;
+        return this;
+    }
+
+    public long getPruneChunkPauseMillis() {
+        return pruneChunkPauseMillis;
+    }
+
+    public DbSettings withPruneChunkPauseMillis(long pruneChunkPauseMillis) {
+        this.pruneChunkPauseMillis = pruneChunkPauseMillis;
+        return this;
+    }
+
+    public boolean isOptimisticTransactions() {
+        return optimisticTransactions;
+    }
+
+    public DbSettings withOptimisticTransactions(boolean optimisticTransactions) {
+        this.optimisticTransactions = optimisticTransactions;
+        return this;
+    }
+
+    public int getTransactionMaxRetries() {
+        return transactionMaxRetries;
+    }
+
+    public DbSettings withTransactionMaxRetries(int transactionMaxRetries) {
+        this.transactionMaxRetries = transactionMaxRetries;
+        return this;
+    }
+
+    public long getWalFlushInterval() {
+        return walFlushInterval;
+    }
+
+    public DbSettings withWalFlushInterval(long walFlushInterval) {
+        this.walFlushInterval = walFlushInterval;
+        return this;
+    }
+
+    public long getSecondaryCatchUpInterval() {
+        return secondaryCatchUpInterval;
+    }
+
+    public DbSettings withSecondaryCatchUpInterval(long secondaryCatchUpInterval) {
+        this.secondaryCatchUpInterval = secondaryCatchUpInterval;
+        return this;
+    }
+
+    public long getRateLimit() {
+        return rateLimit;
+    }
+
+    public DbSettings withRateLimit(long rateLimit) {
+        this.rateLimit = rateLimit;
+        return this;
+    }
+
+    public boolean isRateLimitAutoTune() {
+        return rateLimitAutoTune;
+    }
+
+    public DbSettings withRateLimitAutoTune(boolean rateLimitAutoTune) {
+        this.rateLimitAutoTune = rateLimitAutoTune;
+        return this;
+    }
+
+    public double getBackpressureThreshold() {
+        return backpressureThreshold;
+    }
+
+    public DbSettings withBackpressureThreshold(double backpressureThreshold) {
+        this.backpressureThreshold = backpressureThreshold;
+        return this;
+    }
+
+    public long getBackpressureInterval() {
+        return backpressureInterval;
+    }
+
+    public DbSettings withBackpressureInterval(long backpressureInterval) {
+        this.backpressureInterval = backpressureInterval;
+        return this;
+    }
+
+    public byte[] getEncryptionKey() {
+        return encryptionKey;
+    }
+
+    public DbSettings withEncryptionKey(byte[] encryptionKey) {
+        this.encryptionKey = encryptionKey;
+        return this;
+    }
+
+    public ColumnFamilySettings getColumnFamilySettings(Class<? extends Persistable> model) {
+        return columnFamilySettings.getOrDefault(model, ColumnFamilySettings.DEFAULT);
+    }
+
+    public DbSettings withColumnFamily(Class<? extends Persistable> model, ColumnFamilySettings settings) {
+        this.columnFamilySettings.put(model, settings);
+        return this;
+    }
+
+    public DbSettings withProfile(Class<? extends Persistable> model, ColumnFamilyProfile profile) {
+        this.columnFamilySettings.computeIfAbsent(model, m -> ColumnFamilySettings.newInstance()).withProfile(profile);
+        return this;
+    }
+
+    public DbSettings withPrefixLength(Class<? extends Persistable> model, int prefixLength) {
+        this.columnFamilySettings.computeIfAbsent(model, m -> ColumnFamilySettings.newInstance()).withPrefixLength(prefixLength);
+        return this;
+    }
+
+    /**
+     * e.g. large and repetitive values: (LZ4, ZSTD, 2, 64K) leaves L0 and L1 uncompressed, LZ4 for the
+     * levels in between and ZSTD with a trained dictionary for the bottommost level
+     */
+    public DbSettings withCompression(Class<? extends Persistable> model, ColumnFamilySettings.Compression compression, ColumnFamilySettings.Compression bottommostCompression,
+                                      int uncompressedLevels, int zstdDictionarySize) {
+        this.columnFamilySettings.computeIfAbsent(model, m -> ColumnFamilySettings.newInstance())
+                .withCompression(compression)
+                .withBottommostCompression(bottommostCompression)
+                .withUncompressedLevels(uncompressedLevels)
+                .withZstdDictionarySize(zstdDictionarySize);
+        return this;
+    }
+
+    public DbSettings withBlobFiles(Class<? extends Persistable> model, long minBlobSize) {
+        this.columnFamilySettings.computeIfAbsent(model, m -> ColumnFamilySettings.newInstance())
+                .withBlobFiles(true)
+                .withMinBlobSize(minBlobSize);
+        return this;
+    }
+
+    public DbSettings withRetention(Class<? extends Persistable> model, ColumnFamilySettings.KeyLayout keyLayout, long retainHeights) {
+        this.columnFamilySettings.computeIfAbsent(model, m -> ColumnFamilySettings.newInstance())
+                .withKeyLayout(keyLayout)
+                .withRetainHeights(retainHeights);
+        return this;
+    }
+
+    /**
+     * retention counted in beacon epochs, one block per slot
+     */
+    public DbSettings withRetentionEpochs(Class<? extends Persistable> model, ColumnFamilySettings.KeyLayout keyLayout, long retainEpochs) {
+        return withRetention(model, keyLayout, retainEpochs * ColumnFamilySettings.SLOTS_PER_EPOCH);
+    }
+
+    public DbSettings withMergeOperator(Class<? extends Persistable> model, ColumnFamilySettings.MergeOperator mergeOperator) {
+        this.columnFamilySettings.computeIfAbsent(model, m -> ColumnFamilySettings.newInstance()).withMergeOperator(mergeOperator);
+        return this;
+    }
+
+    public DbSettings withDurability(Class<? extends Persistable> model, ColumnFamilySettings.Durability durability) {
+        this.columnFamilySettings.computeIfAbsent(model, m -> ColumnFamilySettings.newInstance()).withDurability(durability);
+        return this;
+    }
+
+    /**
+     * encrypt the values of the model at rest with the encryptionKey. sealed values do not compress,
+     * set Compression.NONE for the column family to save the cpu. not allowed with a merge operator.
+     */
+    public DbSettings withEncryption(Class<? extends Persistable> model) {
+        this.columnFamilySettings.computeIfAbsent(model, m -> ColumnFamilySettings.newInstance()).withEncrypted(true);
+        return this;
+    }
+
+    public DbSettings withObjectCacheSize(Class<? extends Persistable> model, long objectCacheSize) {
+        this.columnFamilySettings.computeIfAbsent(model, m -> ColumnFamilySettings.newInstance()).withObjectCacheSize(objectCacheSize);
+        return this;
+    }
 }
@@ -0,0 +1,186 @@
+package org.ivy.settlement.infrastructure.datasource;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * description: builds keys whose unsigned bytewise order, the order of RocksDB, ByteArrayWrapper
+ * and Keyable, is the natural order of the encoded fields. fields are written one after the other,
+ * so a composite key sorts by its first field, then by the second and so on:
+ *
+ *   unsigned long / int   - big endian
+ *   signed long / int     - big endian with the sign bit flipped, negatives sort first
+ *   fixed width bytes     - as they are, hashes and addresses
+ *   variable bytes        - 0x00 escaped to 0x00 0xff and terminated by 0x00 0x01, so a shorter
+ *                           field sorts before its extensions and the next field stays aligned
+ *
+ * an encoder owns a growing buffer which is reused after {@link #reset()}, hot paths keep one
+ * encoder per thread and hand the direct buffer of {@link #asByteBuffer()} to the ByteBuffer reads and writes of
+ * RocksDbSource without allocating. not thread safe.
+ * @author carrot
+ */
+public final class KeyEncoder {
+
+    static final byte ESCAPE = 0x00;
+
+    static final byte ESCAPED_ZERO = (byte) 0xff;
+
+    static final byte TERMINATOR = 0x01;
+
+    byte[] buffer;
+
+    int length;
+
+    // handed to the ByteBuffer reads and writes of RocksDbSource, which only take direct buffers
+    ByteBuffer direct;
+
+    public KeyEncoder() {
+        this(32);
+    }
+
+    public KeyEncoder(int capacity) {
+        this.buffer = new byte[capacity];
+    }
+
+    public KeyEncoder reset() {
+        this.length = 0;
+        return this;
+    }
+
+    public KeyEncoder writeUnsignedLong(long value) {
+        ensureCapacity(Long.BYTES);
+        putLong(buffer, length, value);
+        length += Long.BYTES;
+        return this;
+    }
+
+    public KeyEncoder writeUnsignedInt(int value) {
+        ensureCapacity(Integer.BYTES);
+        putInt(buffer, length, value);
+        length += Integer.BYTES;
+        return this;
+    }
+
+    public KeyEncoder writeLong(long value) {
+        return writeUnsignedLong(value ^ Long.MIN_VALUE);
+    }
+
+    public KeyEncoder writeInt(int value) {
+        return writeUnsignedInt(value ^ Integer.MIN_VALUE);
+    }
+
+    public KeyEncoder writeByte(int value) {
+        ensureCapacity(1);
+        buffer[length++] = (byte) value;
+        return this;
+    }
+
+    /**
+     * hashes, addresses and other fields of a fixed width, a value of another width is rejected
+     * since it would shift every following field
+     */
+    public KeyEncoder writeFixed(byte[] value, int width) {
+        if (value.length != width) {
+            throw new IllegalArgumentException("expected " + width + " bytes, got " + value.length);
+        }
+        ensureCapacity(width);
+        System.arraycopy(value, 0, buffer, length, width);
+        length += width;
+        return this;
+    }
+
+    public KeyEncoder writeVariable(byte[] value) {
+        ensureCapacity(value.length * 2 + 2);
+        for (var b : value) {
+            buffer[length++] = b;
+            if (b == ESCAPE) buffer[length++] = ESCAPED_ZERO;
+        }
+        buffer[length++] = ESCAPE;
+        buffer[length++] = TERMINATOR;
+        return this;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public byte[] toBytes() {
+        return Arrays.copyOf(buffer, length);
+    }
+
+    /**
+     * the encoded key in a direct buffer owned by the encoder, reused by every call and only
+     * reallocated when the key outgrows it. valid until the next call, which rewinds it.
+     */
+    public ByteBuffer asByteBuffer() {
+        if (direct == null || direct.capacity() < length) {
+            direct = ByteBuffer.allocateDirect(Math.max(buffer.length, length));
+        }
+        return direct.clear().put(buffer, 0, length).flip();
+    }
+
+    private void ensureCapacity(int extra) {
+        if (length + extra <= buffer.length) return;
+        buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + extra));
+    }
+
+    public static byte[] unsignedLong(long value) {
+        var key = new byte[Long.BYTES];
+        putLong(key, 0, value);
+        return key;
+    }
+
+    public static byte[] unsignedInt(int value) {
+        var key = new byte[Integer.BYTES];
+        putInt(key, 0, value);
+        return key;
+    }
+
+    /**
+     * (chain, height) key, see AbstractDbSource.chainKey
+     */
+    public static byte[] chainHeight(int chain, long height) {
+        var key = new byte[Integer.BYTES + Long.BYTES];
+        putInt(key, 0, chain);
+        putLong(key, Integer.BYTES, height);
+        return key;
+    }
+
+    public static void putLong(byte[] key, int offset, long value) {
+        for (var i = Long.BYTES - 1; i >= 0; i--) {
+            key[offset + i] = (byte) value;
+            value >>>= 8;
+        }
+    }
+
+    public static void putInt(byte[] key, int offset, int value) {
+        for (var i = Integer.BYTES - 1; i >= 0; i--) {
+            key[offset + i] = (byte) value;
+            value >>>= 8;
+        }
+    }
+
+    public static long readUnsignedLong(byte[] key, int offset) {
+        var value = 0L;
+        for (var i = 0; i < Long.BYTES; i++) {
+            value = (value << 8) | (key[offset + i] & 0xff);
+        }
+        return value;
+    }
+
+    public static int readUnsignedInt(byte[] key, int offset) {
+        var value = 0;
+        for (var i = 0; i < Integer.BYTES; i++) {
+            value = (value << 8) | (key[offset + i] & 0xff);
+        }
+        return value;
+    }
+
+    public static long readLong(byte[] key, int offset) {
+        return readUnsignedLong(key, offset) ^ Long.MIN_VALUE;
+    }
+
+    public static int readInt(byte[] key, int offset) {
+        return readUnsignedInt(key, offset) ^ Integer.MIN_VALUE;
+    }
+}
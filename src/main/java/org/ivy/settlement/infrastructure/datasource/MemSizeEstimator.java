@@ -17,6 +17,9 @@
  */
 package org.ivy.settlement.infrastructure.datasource;
 
+import org.ivy.settlement.infrastructure.bytes.ByteArrayWrapper;
+import org.ivy.settlement.infrastructure.datasource.model.Persistable;
+
 /**
  * Interface for estimating size of a specific Java type
  *
@@ -33,5 +36,20 @@ public interface MemSizeEstimator<E> {
         return bytes == null ? 0 : bytes.length + 16; // 4 - compressed ref size, 12 - Object header
     };
 
+    /**
+     * ByteArrayWrapper type size estimator
+     */
+    MemSizeEstimator<ByteArrayWrapper> ByteArrayWrapperEstimator = wrapper -> {
+        return wrapper == null ? 0 : ByteArrayEstimator.estimateSize(wrapper.getData()) + 24; // 12 - Object header, 4 - data ref, 4 - hashCode, 4 - padding
+    };
+
+    /**
+     * decoded Persistable size estimator, the encoded bytes stay referenced
+     * and the decoded fields copy about as much again
+     */
+    MemSizeEstimator<Persistable> PersistableEstimator = persistable -> {
+        return persistable == null ? 0 : 2 * ByteArrayEstimator.estimateSize(persistable.valueBytes()) + 16;
+    };
+
 
 }
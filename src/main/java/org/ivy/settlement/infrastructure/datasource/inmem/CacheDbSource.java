@@ -1,77 +1,254 @@
 package org.ivy.settlement.infrastructure.datasource.inmem;
 
 import org.apache.commons.lang3.tuple.Pair;
+import org.ivy.settlement.infrastructure.bytes.ByteArrayWrapper;
+import org.ivy.settlement.infrastructure.bytes.ByteUtil;
 import org.ivy.settlement.infrastructure.datasource.AbstractDbSource;
+import org.ivy.settlement.infrastructure.datasource.MemSizeEstimator;
 import org.ivy.settlement.infrastructure.datasource.model.Keyable;
 import org.ivy.settlement.infrastructure.datasource.model.Persistable;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
 
 /**
- * description:
+ * description: in memory db source, one sorted map per model ordered like RocksDB by unsigned
+ * key bytes, so scans, prefix scans and delRange behave the same as on RocksDbSource.
+ *
+ * with maxBytes > 0 the estimated size of keys and values is capped, a write which exceeds the
+ * budget evicts the lowest keys, i.e. the oldest heights, of its model first and then of the other
+ * models. with offHeap the encoded values are kept in direct buffers outside of the java heap and
+ * decoded on every read through the codec registry, otherwise the written objects are kept as they are.
  * @author carrot
  */
 public class CacheDbSource extends AbstractDbSource {
 
-    private ConcurrentMap<Keyable, Persistable> cache = new ConcurrentHashMap<>();
+    // 0 means unbounded
+    final long maxBytes;
+
+    final boolean offHeap;
+
+    final Map<Class<? extends Persistable>, ConcurrentNavigableMap<ByteArrayWrapper, Value>> partitions = new ConcurrentHashMap<>();
+
+    final AtomicLong usedBytes = new AtomicLong();
 
     public CacheDbSource() {
+        this(0, false);
+    }
+
+    public CacheDbSource(long maxBytes, boolean offHeap) {
+        this.maxBytes = maxBytes;
+        this.offHeap = offHeap;
     }
 
     @Override
-    public Persistable get(Class<?> model, Keyable keyable) {
-        return this.cache.get(keyable);
+    public <T extends Persistable> T get(Class<T> model, Keyable keyable) {
+        var value = partition(model).get(new ByteArrayWrapper(keyable.keyBytes()));
+        return value == null ? null : value.get(model);
     }
 
     @Override
     public byte[] getRaw(Class<?> model, Keyable keyable) {
-        Persistable persistable = this.cache.get(keyable);
-        if (persistable != null) {
-            return persistable.valueBytes();
-        }
-        return null;
+        var value = partition(model).get(new ByteArrayWrapper(keyable.keyBytes()));
+        return value == null ? null : value.bytes();
     }
 
     @Override
     public List<byte[]> batchGetRaw(Class<?> model, List<byte[]> keys) {
-        var result = new ArrayList<byte[]>();
-        for (byte[] key : keys) {
-            Keyable keyable = Keyable.ofDefault(key);
-            Persistable persistable = cache.get(keyable);
-            if (persistable == null) {
-                result.add(null);
-            } else {
-                result.add(persistable.valueBytes());
-            }
-
+        var partition = partition(model);
+        var result = new ArrayList<byte[]>(keys.size());
+        for (var key : keys) {
+            var value = partition.get(new ByteArrayWrapper(key));
+            result.add(value == null ? null : value.bytes());
         }
         return result;
     }
 
     @Override
     public void put(Keyable keyable, Persistable persistable) {
-        this.cache.put(keyable, persistable);
+        write(keyable, persistable);
+        evictIfNeeded(persistable.getClass());
     }
 
     @Override
     public void updateBatch(List<Pair<Keyable, Persistable>> saveBatch) {
-        for (Pair<Keyable, Persistable> pair : saveBatch) {
-            this.cache.put(pair.getLeft(), pair.getRight());
+        for (var pair : saveBatch) {
+            write(pair.getLeft(), pair.getRight());
+        }
+        for (var pair : saveBatch) {
+            evictIfNeeded(pair.getRight().getClass());
+        }
+    }
+
+    private void write(Keyable keyable, Persistable persistable) {
+        var model = persistable.getClass();
+        var partition = partition(model);
+        var key = new ByteArrayWrapper(keyable.keyBytes());
+        if (persistable.valueBytes() == null) {
+            release(partition.remove(key));
+            return;
+        }
+
+        Value value;
+        if (offHeap) {
+            codecRegistry.registerDefault(model);
+            value = new OffHeapValue(persistable.valueBytes());
+        } else {
+            value = new HeapValue(persistable);
+        }
+        value.weight = weight(key, value);
+        usedBytes.addAndGet(value.weight);
+        release(partition.put(key, value));
+    }
+
+    private void evictIfNeeded(Class<? extends Persistable> model) {
+        if (maxBytes <= 0 || usedBytes.get() <= maxBytes) return;
+
+        evict(partition(model));
+        for (var partition : partitions.values()) {
+            if (usedBytes.get() <= maxBytes) return;
+            evict(partition);
+        }
+    }
+
+    private void evict(ConcurrentNavigableMap<ByteArrayWrapper, Value> partition) {
+        while (usedBytes.get() > maxBytes) {
+            var lowest = partition.pollFirstEntry();
+            if (lowest == null) return;
+            release(lowest.getValue());
         }
     }
 
     @Override
     public List<Persistable> getAll(Class<?> model) {
-        List<Persistable> result = new ArrayList<>();
-        for (Map.Entry<Keyable, Persistable> entry : cache.entrySet()) {
-            if (entry.getValue().getClass().isAssignableFrom(model)) {
-                result.add(entry.getValue());
-            }
+        var result = new ArrayList<Persistable>();
+        for (var value : partition(model).values()) {
+            result.add(value.get(model.asSubclass(Persistable.class)));
         }
         return result;
     }
+
+    @Override
+    public <T extends Persistable> Stream<T> scan(Class<T> model, byte[] from, byte[] to) {
+        var partition = partition(model);
+        ConcurrentNavigableMap<ByteArrayWrapper, Value> range;
+        if (from == null && to == null) {
+            range = partition;
+        } else if (from == null) {
+            range = partition.headMap(new ByteArrayWrapper(to), false);
+        } else if (to == null) {
+            range = partition.tailMap(new ByteArrayWrapper(from), true);
+        } else {
+            range = partition.subMap(new ByteArrayWrapper(from), true, new ByteArrayWrapper(to), false);
+        }
+        return range.values().stream().map(value -> value.get(model));
+    }
+
+    @Override
+    public <T extends Persistable> Stream<T> scanPrefix(Class<T> model, byte[] prefix) {
+        return scan(model, prefix, ByteUtil.prefixUpperBound(prefix));
+    }
+
+    /**
+     * remove the keys of the model in [start, end) by unsigned byte order
+     */
+    public void delRange(Class<?> model, byte[] start, byte[] end) {
+        var range = partition(model).subMap(new ByteArrayWrapper(start), true, new ByteArrayWrapper(end), false);
+        Map.Entry<ByteArrayWrapper, Value> entry;
+        while ((entry = range.pollFirstEntry()) != null) {
+            release(entry.getValue());
+        }
+    }
+
+    public long getUsedBytes() {
+        return usedBytes.get();
+    }
+
+    public long size(Class<?> model) {
+        return partition(model).size();
+    }
+
+    private ConcurrentNavigableMap<ByteArrayWrapper, Value> partition(Class<?> model) {
+        return partitions.computeIfAbsent(model.asSubclass(Persistable.class), m -> new ConcurrentSkipListMap<>());
+    }
+
+    private void release(Value old) {
+        // the weight charged at insert, a heap model may have grown or been reset since
+        if (old != null) usedBytes.addAndGet(-old.weight);
+    }
+
+    private static long weight(ByteArrayWrapper key, Value value) {
+        // 40 - skip list node and index overhead
+        return MemSizeEstimator.ByteArrayWrapperEstimator.estimateSize(key) + value.estimateSize() + 40;
+    }
+
+    abstract static class Value {
+
+        // entry weight charged to usedBytes at insert
+        long weight;
+
+        abstract <T extends Persistable> T get(Class<T> model);
+
+        abstract byte[] bytes();
+
+        abstract long estimateSize();
+    }
+
+    static class HeapValue extends Value {
+
+        final Persistable persistable;
+
+        HeapValue(Persistable persistable) {
+            this.persistable = persistable;
+        }
+
+        @Override
+        <T extends Persistable> T get(Class<T> model) {
+            return model.cast(persistable);
+        }
+
+        @Override
+        byte[] bytes() {
+            return persistable.valueBytes();
+        }
+
+        @Override
+        long estimateSize() {
+            return MemSizeEstimator.PersistableEstimator.estimateSize(persistable);
+        }
+    }
+
+    class OffHeapValue extends Value {
+
+        final ByteBuffer buffer;
+
+        OffHeapValue(byte[] bytes) {
+            this.buffer = ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+        }
+
+        @Override
+        <T extends Persistable> T get(Class<T> model) {
+            return codecRegistry.decode(model, bytes());
+        }
+
+        @Override
+        byte[] bytes() {
+            var bytes = new byte[buffer.capacity()];
+            buffer.get(0, bytes);
+            return bytes;
+        }
+
+        @Override
+        long estimateSize() {
+            // direct buffer object and its cleaner stay on heap
+            return buffer.capacity() + 64;
+        }
+    }
 }
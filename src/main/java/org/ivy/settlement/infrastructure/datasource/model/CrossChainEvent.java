@@ -1,9 +1,8 @@
 package org.ivy.settlement.infrastructure.datasource.model;
 
-import org.ivy.settlement.infrastructure.bytes.ByteUtil;
 import org.ivy.settlement.infrastructure.rlp.RLP;
-import org.ivy.settlement.infrastructure.rlp.RLPList;
 import org.ivy.settlement.infrastructure.rlp.RLPModel;
+import org.ivy.settlement.infrastructure.rlp.RLPView;
 
 import java.math.BigInteger;
 
@@ -57,14 +56,14 @@ public class CrossChainEvent extends RLPModel implements EthLogEvent {
 
     @Override
     protected void rlpDecoded() {
-        var payload = (RLPList) RLP.decode2(this.rlpEncoded).get(0);
-        this.chain = ByteUtil.byteArrayToInt(payload.get(0).getRLPData());
-        this.dstAddress = payload.get(1).getRLPData();
-        this.gasLimit =  ByteUtil.byteArrayToLong(payload.get(2).getRLPData());
-        this.blockHash = payload.get(3).getRLPData();
-        this.data = payload.get(4).getRLPData();
-        this.transactionProof = payload.get(5).getRLPData();
-        this.payableTo = payload.get(6).getRLPData();
+        var payload = RLPView.of(this.rlpEncoded);
+        this.chain = payload.get(0).asInt();
+        this.dstAddress = payload.get(1).bytes();
+        this.gasLimit =  payload.get(2).asLong();
+        this.blockHash = payload.get(3).bytes();
+        this.data = payload.get(4).bytes();
+        this.transactionProof = payload.get(5).bytes();
+        this.payableTo = payload.get(6).bytes();
     }
 
     public int getChain() {
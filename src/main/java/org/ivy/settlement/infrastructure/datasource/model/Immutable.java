@@ -0,0 +1,11 @@
+package org.ivy.settlement.infrastructure.datasource.model;
+
+/**
+ * description: marks a model whose state never changes once it is decoded, no setters and no
+ * mutable collections handed out, so one decoded instance may be shared by every reader.
+ * required for ColumnFamilySettings.objectCacheSize, the object cache returns the same instance
+ * to every get.
+ * @author carrot
+ */
+public interface Immutable {
+}
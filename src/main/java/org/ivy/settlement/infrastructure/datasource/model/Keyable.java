@@ -1,8 +1,10 @@
 package org.ivy.settlement.infrastructure.datasource.model;
 
+import org.ivy.settlement.infrastructure.bytes.FastByteComparisons;
 import org.spongycastle.util.encoders.Hex;
 
 import java.util.Arrays;
+import java.util.Comparator;
 
 /**
  * description:
@@ -10,16 +12,19 @@ import java.util.Arrays;
  */
 public interface Keyable extends Comparable<Keyable> {
 
+    /**
+     * unsigned lexicographic order of the key bytes, the order of RocksDB's bytewise comparator,
+     * a key sorts before its extensions
+     */
+    Comparator<byte[]> BYTES_ORDER = (k1, k2) -> FastByteComparisons.compareTo(k1, 0, k1.length, k2, 0, k2.length);
+
+    Comparator<Keyable> KEY_ORDER = (k1, k2) -> BYTES_ORDER.compare(k1.keyBytes(), k2.keyBytes());
+
     byte[] keyBytes();
 
     @Override
     default public int compareTo(Keyable o) {
-        for (var i = 0; i < o.keyBytes().length; i++) {
-            var temp = this.keyBytes()[i] - o.keyBytes()[i];
-            if (temp == 0) continue;
-            return temp;
-        }
-        return 0;
+        return KEY_ORDER.compare(this, o);
     }
 
     static DefaultKeyable ofDefault(byte[] keys) {
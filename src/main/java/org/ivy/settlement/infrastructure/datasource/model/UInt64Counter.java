@@ -0,0 +1,46 @@
+package org.ivy.settlement.infrastructure.datasource.model;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * description: unsigned counter stored as 8 bytes little endian instead of rlp, the value format
+ * of ColumnFamilySettings.MergeOperator.UINT64_ADD. every counter column family subclasses it
+ * with a public (byte[]) constructor, e.g. class SettledEventCount extends UInt64Counter.
+ * @author carrot
+ */
+public class UInt64Counter extends Persistable implements Immutable {
+
+    long value;
+
+    public UInt64Counter(byte[] encoded) {
+        super(encoded);
+    }
+
+    public UInt64Counter(long value) {
+        super(null);
+        this.value = value;
+        this.rlpEncoded = rlpEncoded();
+    }
+
+    @Override
+    protected byte[] rlpEncoded() {
+        return ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN).putLong(this.value).array();
+    }
+
+    @Override
+    protected void rlpDecoded() {
+        this.value = ByteBuffer.wrap(this.rlpEncoded).order(ByteOrder.LITTLE_ENDIAN).getLong();
+    }
+
+    public long getValue() {
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{" +
+                "value=" + Long.toUnsignedString(value) +
+                '}';
+    }
+}
@@ -0,0 +1,45 @@
+package org.ivy.settlement.infrastructure.datasource.model;
+
+import java.nio.ByteBuffer;
+
+/**
+ * description: unsigned high water mark stored as 8 bytes big endian instead of rlp, so the
+ * bytewise maximum of ColumnFamilySettings.MergeOperator.MAX is the numeric one. every such
+ * column family subclasses it with a public (byte[]) constructor, e.g. class HighestSyncedNumber extends UInt64Max.
+ * @author carrot
+ */
+public class UInt64Max extends Persistable implements Immutable {
+
+    long value;
+
+    public UInt64Max(byte[] encoded) {
+        super(encoded);
+    }
+
+    public UInt64Max(long value) {
+        super(null);
+        this.value = value;
+        this.rlpEncoded = rlpEncoded();
+    }
+
+    @Override
+    protected byte[] rlpEncoded() {
+        return ByteBuffer.allocate(Long.BYTES).putLong(this.value).array();
+    }
+
+    @Override
+    protected void rlpDecoded() {
+        this.value = ByteBuffer.wrap(this.rlpEncoded).getLong();
+    }
+
+    public long getValue() {
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{" +
+                "value=" + Long.toUnsignedString(value) +
+                '}';
+    }
+}
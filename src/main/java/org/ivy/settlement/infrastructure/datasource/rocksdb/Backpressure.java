@@ -0,0 +1,76 @@
+package org.ivy.settlement.infrastructure.datasource.rocksdb;
+
+/**
+ * description: point in time write pressure of a db, the worst column family decides.
+ * pressure is the ratio of pending compaction bytes and L0 files to the limits where rocksdb
+ * starts to delay writes, producers are expected to slow down on SLOW_DOWN, before rocksdb
+ * delays them itself, and to pause on STOP.
+ * @author carrot
+ */
+public class Backpressure {
+
+    public enum Level {
+        NONE,
+        SLOW_DOWN,
+        STOP
+    }
+
+    public static final Backpressure NONE = new Backpressure(Level.NONE, 0, 0, 0, false, false);
+
+    final Level level;
+
+    final double pressure;
+
+    final long pendingCompactionBytes;
+
+    final long level0Files;
+
+    final boolean writeDelayed;
+
+    final boolean writeStopped;
+
+    public Backpressure(Level level, double pressure, long pendingCompactionBytes, long level0Files, boolean writeDelayed, boolean writeStopped) {
+        this.level = level;
+        this.pressure = pressure;
+        this.pendingCompactionBytes = pendingCompactionBytes;
+        this.level0Files = level0Files;
+        this.writeDelayed = writeDelayed;
+        this.writeStopped = writeStopped;
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    public double getPressure() {
+        return pressure;
+    }
+
+    public long getPendingCompactionBytes() {
+        return pendingCompactionBytes;
+    }
+
+    public long getLevel0Files() {
+        return level0Files;
+    }
+
+    public boolean isWriteDelayed() {
+        return writeDelayed;
+    }
+
+    public boolean isWriteStopped() {
+        return writeStopped;
+    }
+
+    @Override
+    public String toString() {
+        return "Backpressure{" +
+                "level=" + level +
+                ", pressure=" + String.format("%.2f", pressure) +
+                ", pendingCompactionBytes=" + pendingCompactionBytes +
+                ", level0Files=" + level0Files +
+                ", writeDelayed=" + writeDelayed +
+                ", writeStopped=" + writeStopped +
+                '}';
+    }
+}
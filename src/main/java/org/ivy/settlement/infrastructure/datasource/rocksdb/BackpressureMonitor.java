@@ -0,0 +1,52 @@
+package org.ivy.settlement.infrastructure.datasource.rocksdb;
+
+import org.ivy.settlement.infrastructure.async.IrisSettlementWorker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * description: samples the backpressure of a RocksDbSource every DbSettings.backpressureInterval
+ * millis and notifies the listeners whenever its level changes.
+ * @author carrot
+ */
+class BackpressureMonitor extends IrisSettlementWorker {
+
+    private static final Logger logger = LoggerFactory.getLogger("db");
+
+    final RocksDbSource dbSource;
+
+    final List<Consumer<Backpressure>> listeners = new CopyOnWriteArrayList<>();
+
+    final CountDownLatch closeLatch = new CountDownLatch(1);
+
+    Backpressure.Level lastLevel = Backpressure.Level.NONE;
+
+    BackpressureMonitor(RocksDbSource dbSource) {
+        super(dbSource.name + "_backpressure");
+        this.dbSource = dbSource;
+    }
+
+    @Override
+    protected void doWork() throws Exception {
+        if (closeLatch.await(dbSource.settings.getBackpressureInterval(), TimeUnit.MILLISECONDS)) return;
+
+        var backpressure = dbSource.getBackpressure();
+        if (backpressure.getLevel() == lastLevel) return;
+        logger.info("backpressure of db '{}' changed from {} to {}", dbSource.name, lastLevel, backpressure);
+        lastLevel = backpressure.getLevel();
+        for (var listener : listeners) {
+            listener.accept(backpressure);
+        }
+    }
+
+    void close() {
+        closeLatch.countDown();
+        terminateAndFullAwait();
+    }
+}
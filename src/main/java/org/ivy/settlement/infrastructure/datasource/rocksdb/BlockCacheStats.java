@@ -0,0 +1,111 @@
+package org.ivy.settlement.infrastructure.datasource.rocksdb;
+
+/**
+ * description: point in time view of the shared block cache, counters are cumulative since the db was opened.
+ * @author carrot
+ */
+public class BlockCacheStats {
+
+    final long capacity;
+
+    final long usage;
+
+    final long pinnedUsage;
+
+    final long hit;
+
+    final long miss;
+
+    final long indexHit;
+
+    final long indexMiss;
+
+    final long filterHit;
+
+    final long filterMiss;
+
+    final long dataHit;
+
+    final long dataMiss;
+
+    public BlockCacheStats(long capacity, long usage, long pinnedUsage, long hit, long miss, long indexHit, long indexMiss, long filterHit, long filterMiss, long dataHit, long dataMiss) {
+        this.capacity = capacity;
+        this.usage = usage;
+        this.pinnedUsage = pinnedUsage;
+        this.hit = hit;
+        this.miss = miss;
+        this.indexHit = indexHit;
+        this.indexMiss = indexMiss;
+        this.filterHit = filterHit;
+        this.filterMiss = filterMiss;
+        this.dataHit = dataHit;
+        this.dataMiss = dataMiss;
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    public long getUsage() {
+        return usage;
+    }
+
+    public long getPinnedUsage() {
+        return pinnedUsage;
+    }
+
+    public long getHit() {
+        return hit;
+    }
+
+    public long getMiss() {
+        return miss;
+    }
+
+    public long getIndexHit() {
+        return indexHit;
+    }
+
+    public long getIndexMiss() {
+        return indexMiss;
+    }
+
+    public long getFilterHit() {
+        return filterHit;
+    }
+
+    public long getFilterMiss() {
+        return filterMiss;
+    }
+
+    public long getDataHit() {
+        return dataHit;
+    }
+
+    public long getDataMiss() {
+        return dataMiss;
+    }
+
+    public double hitRatio() {
+        var total = hit + miss;
+        return total == 0 ? 0 : (double) hit / total;
+    }
+
+    @Override
+    public String toString() {
+        return "BlockCacheStats{" +
+                "capacity=" + capacity +
+                ", usage=" + usage +
+                ", pinnedUsage=" + pinnedUsage +
+                ", hit=" + hit +
+                ", miss=" + miss +
+                ", hitRatio=" + String.format("%.4f", hitRatio()) +
+                ", indexHit=" + indexHit +
+                ", indexMiss=" + indexMiss +
+                ", filterHit=" + filterHit +
+                ", filterMiss=" + filterMiss +
+                ", dataHit=" + dataHit +
+                ", dataMiss=" + dataMiss +
+                '}';
+    }
+}
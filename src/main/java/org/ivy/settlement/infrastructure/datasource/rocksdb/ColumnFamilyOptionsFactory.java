@@ -0,0 +1,198 @@
+package org.ivy.settlement.infrastructure.datasource.rocksdb;
+
+import org.ivy.settlement.infrastructure.datasource.ColumnFamilyProfile;
+import org.ivy.settlement.infrastructure.datasource.ColumnFamilySettings;
+import org.ivy.settlement.infrastructure.datasource.DbSettings;
+import org.ivy.settlement.infrastructure.datasource.model.Persistable;
+import org.rocksdb.*;
+import org.rocksdb.util.SizeUnit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * description: builds the ColumnFamilyOptions of every column family from DbSettings and
+ * the profile attached to its model. the created native objects have to outlive the db,
+ * so they are kept here and released by {@link #close()} after the db was closed.
+ * @author carrot
+ */
+public class ColumnFamilyOptionsFactory implements AutoCloseable {
+
+    // zstd recommends about 100 times the dictionary size of samples for training
+    static final int ZSTD_TRAIN_BYTES_RATIO = 100;
+
+    final DbSettings settings;
+
+    final Cache blockCache;
+
+    final List<AutoCloseable> resources = new ArrayList<>();
+
+    public ColumnFamilyOptionsFactory(DbSettings settings, Cache blockCache) {
+        this.settings = settings;
+        this.blockCache = blockCache;
+    }
+
+    /**
+     * @param model the model stored in the column family, null for the default column family
+     */
+    public ColumnFamilyOptions getInstance(Class<? extends Persistable> model) {
+        var cfSettings = model == null ? ColumnFamilySettings.DEFAULT : settings.getColumnFamilySettings(model);
+        var tableConfig = newTableConfig();
+        var options = new ColumnFamilyOptions()
+                .setMaxWriteBufferNumber(4)
+                .setMinWriteBufferNumberToMerge(4)
+                .setWriteBufferSize(settings.getWriteBufferSize() * SizeUnit.MB);
+
+        switch (cfSettings.getProfile()) {
+            case POINT_LOOKUP -> {
+                tableConfig
+                        .setBlockSize(4 * SizeUnit.KB)
+                        .setDataBlockIndexType(DataBlockIndexType.kDataBlockBinaryAndHash)
+                        .setDataBlockHashTableUtilRatio(0.75)
+                        .setWholeKeyFiltering(true)
+                        .setFilterPolicy(register(new BloomFilter(10, false)));
+                options.setMinWriteBufferNumberToMerge(1)
+                        .setCompactionStyle(CompactionStyle.LEVEL)
+                        .setLevelCompactionDynamicLevelBytes(true)
+                        .setCompressionType(CompressionType.LZ4_COMPRESSION);
+            }
+            case APPEND_LOG -> {
+                tableConfig.setBlockSize(64 * SizeUnit.KB);
+                options.setWriteBufferSize(2 * settings.getWriteBufferSize() * SizeUnit.MB)
+                        .setMinWriteBufferNumberToMerge(1)
+                        .setCompactionStyle(CompactionStyle.LEVEL)
+                        .setLevelCompactionDynamicLevelBytes(true)
+                        .setTargetFileSizeBase(128 * SizeUnit.MB)
+                        .setCompressionType(CompressionType.LZ4_COMPRESSION)
+                        .setBottommostCompressionType(CompressionType.ZSTD_COMPRESSION);
+            }
+            case SMALL_HOT_SET -> {
+                tableConfig
+                        .setBlockSize(4 * SizeUnit.KB)
+                        .setWholeKeyFiltering(true)
+                        .setFilterPolicy(register(new BloomFilter(10, false)));
+                options.setWriteBufferSize(4 * SizeUnit.MB)
+                        .setMaxWriteBufferNumber(2)
+                        .setMinWriteBufferNumberToMerge(1)
+                        .setCompactionStyle(CompactionStyle.UNIVERSAL)
+                        .setCompressionType(CompressionType.NO_COMPRESSION);
+            }
+            default -> {
+            }
+        }
+
+        applyCompression(options, cfSettings);
+        applyBlobFiles(options, cfSettings);
+
+        switch (cfSettings.getMergeOperator()) {
+            case UINT64_ADD -> options.setMergeOperator(register(new UInt64AddOperator()));
+            case MAX -> options.setMergeOperatorName("max");
+            // items are concatenated without delimiter, the list header is restored on read
+            case RLP_LIST_APPEND -> options.setMergeOperator(register(new StringAppendOperator("")));
+            default -> {
+            }
+        }
+
+        if (cfSettings.getPrefixLength() > 0) {
+            // prefix bloom in sst files and memtable, so a prefix seek skips files without the prefix
+            options.useFixedLengthPrefixExtractor(cfSettings.getPrefixLength())
+                    .setMemtablePrefixBloomSizeRatio(0.1);
+            if (!hasFilter(cfSettings)) {
+                tableConfig.setFilterPolicy(register(new BloomFilter(10, false)));
+            }
+        }
+
+        options.setTableFormatConfig(tableConfig);
+        return register(options);
+    }
+
+    private void applyCompression(ColumnFamilyOptions options, ColumnFamilySettings cfSettings) {
+        if (cfSettings.getCompression() != null) {
+            var compression = toCompressionType(cfSettings.getCompression());
+            var perLevel = new ArrayList<CompressionType>(options.numLevels());
+            for (var level = 0; level < options.numLevels(); level++) {
+                perLevel.add(level < cfSettings.getUncompressedLevels() ? CompressionType.NO_COMPRESSION : compression);
+            }
+            options.setCompressionPerLevel(perLevel);
+        }
+
+        if (cfSettings.getBottommostCompression() != null) {
+            options.setBottommostCompressionType(toCompressionType(cfSettings.getBottommostCompression()));
+            if (cfSettings.getBottommostCompression() == ColumnFamilySettings.Compression.ZSTD && cfSettings.getZstdDictionarySize() > 0) {
+                // the dictionary is trained from blocks sampled while the bottommost file is written
+                // and stored in the file itself, so every file can be decompressed on its own
+                // in long, a dictionary above 21MB would overflow the int sample size
+                var trainBytes = (int) Math.min((long) cfSettings.getZstdDictionarySize() * ZSTD_TRAIN_BYTES_RATIO, Integer.MAX_VALUE);
+                var compressionOptions = register(new CompressionOptions())
+                        .setEnabled(true)
+                        .setMaxDictBytes(cfSettings.getZstdDictionarySize())
+                        .setZStdMaxTrainBytes(trainBytes);
+                options.setBottommostCompressionOptions(compressionOptions);
+            }
+        }
+    }
+
+    private void applyBlobFiles(ColumnFamilyOptions options, ColumnFamilySettings cfSettings) {
+        if (!cfSettings.isBlobFiles()) return;
+
+        options.setEnableBlobFiles(true)
+                .setMinBlobSize(cfSettings.getMinBlobSize())
+                .setBlobFileSize(cfSettings.getBlobFileSize())
+                // a blob is compressed on its own, without the neighbours of a data block
+                .setBlobCompressionType(cfSettings.getCompression() == null ? CompressionType.LZ4_COMPRESSION : toCompressionType(cfSettings.getCompression()))
+                .setEnableBlobGarbageCollection(true)
+                .setBlobGarbageCollectionAgeCutoff(cfSettings.getBlobGcAgeCutoff())
+                .setBlobGarbageCollectionForceThreshold(cfSettings.getBlobGcForceThreshold())
+                .setBlobCompactionReadaheadSize(2 * SizeUnit.MB);
+    }
+
+    static CompressionType toCompressionType(ColumnFamilySettings.Compression compression) {
+        return switch (compression) {
+            case NONE -> CompressionType.NO_COMPRESSION;
+            case SNAPPY -> CompressionType.SNAPPY_COMPRESSION;
+            case LZ4 -> CompressionType.LZ4_COMPRESSION;
+            case ZSTD -> CompressionType.ZSTD_COMPRESSION;
+        };
+    }
+
+    private boolean hasFilter(ColumnFamilySettings cfSettings) {
+        return settings.isBloomFilterFlag()
+                || cfSettings.getProfile() == ColumnFamilyProfile.POINT_LOOKUP
+                || cfSettings.getProfile() == ColumnFamilyProfile.SMALL_HOT_SET;
+    }
+
+    private BlockBasedTableConfig newTableConfig() {
+        //BlockBasedTable 是 SSTable 的默认表格式。
+        var blockBasedTableConfig = new BlockBasedTableConfig();
+        blockBasedTableConfig
+                .setBlockCache(blockCache)
+                .setBlockSizeDeviation(10)
+                .setBlockRestartInterval(64)
+                .setCacheIndexAndFilterBlocks(settings.isCacheIndexAndFilterBlocks())
+                .setCacheIndexAndFilterBlocksWithHighPriority(settings.isCacheIndexAndFilterBlocks())
+                .setPinL0FilterAndIndexBlocksInCache(settings.isPinL0FilterAndIndexBlocks());
+        if (settings.isPartitionedIndexFilters()) {
+            blockBasedTableConfig
+                    .setIndexType(IndexType.kTwoLevelIndexSearch)
+                    .setPartitionFilters(true)
+                    .setMetadataBlockSize(4 * SizeUnit.KB)
+                    .setPinTopLevelIndexAndFilter(true);
+        }
+        if (settings.isBloomFilterFlag()) {
+            blockBasedTableConfig.setFilterPolicy(register(new BloomFilter(10, false)));
+        }
+        // .setBlockCacheCompressedSize(32 * SizeUnit.KB);
+        return blockBasedTableConfig;
+    }
+
+    private <T extends AutoCloseable> T register(T resource) {
+        this.resources.add(resource);
+        return resource;
+    }
+
+    @Override
+    public void close() {
+        RocksDbSource.close(resources.toArray(new AutoCloseable[0]));
+        resources.clear();
+    }
+}
@@ -0,0 +1,159 @@
+package org.ivy.settlement.infrastructure.datasource.rocksdb;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.ivy.settlement.infrastructure.async.IrisSettlementWorker;
+import org.ivy.settlement.infrastructure.datasource.model.Keyable;
+import org.ivy.settlement.infrastructure.datasource.model.Persistable;
+import org.rocksdb.WriteOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * description: merges the batches of concurrent writers into one synced WriteBatch,
+ * so a whole group pays for a single fsync. every writer gets a future which
+ * completes once its data is durable.
+ * @author carrot
+ */
+class GroupCommitWriter extends IrisSettlementWorker {
+
+    private static final Logger logger = LoggerFactory.getLogger("db");
+
+    private static final long POLL_TIMEOUT_MS = 100;
+
+    final RocksDbSource dbSource;
+
+    final long windowNanos;
+
+    final long maxBytes;
+
+    final LinkedBlockingQueue<PendingWrite> pendingWrites;
+
+    final WriteOptions syncWriteOptions;
+
+    // submitters hold the read lock, close() takes the write lock so nothing is enqueued after the final drain
+    final ReentrantReadWriteLock closeLock;
+
+    boolean closed;
+
+    GroupCommitWriter(RocksDbSource dbSource, long windowMicros, long maxBytes) {
+        super(dbSource.name + "_group_commit");
+        this.dbSource = dbSource;
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+        this.maxBytes = maxBytes;
+        this.pendingWrites = new LinkedBlockingQueue<>();
+        this.syncWriteOptions = new WriteOptions().setSync(true);
+        this.closeLock = new ReentrantReadWriteLock();
+    }
+
+    CompletableFuture<Void> submit(List<Pair<Keyable, Persistable>> saveBatch) {
+        var pendingWrite = new PendingWrite(saveBatch);
+        try {
+            this.closeLock.readLock().lock();
+            if (closed) {
+                pendingWrite.future.completeExceptionally(new IllegalStateException("group commit writer of db '" + dbSource.name + "' was closed"));
+            } else {
+                this.pendingWrites.add(pendingWrite);
+            }
+        } finally {
+            this.closeLock.readLock().unlock();
+        }
+        return pendingWrite.future;
+    }
+
+    @Override
+    protected void doWork() throws Exception {
+        var first = this.pendingWrites.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        if (first == null) return;
+
+        var group = new ArrayList<PendingWrite>();
+        group.add(first);
+        var groupBytes = first.bytes;
+        var deadline = System.nanoTime() + windowNanos;
+        while (groupBytes < maxBytes) {
+            var remain = deadline - System.nanoTime();
+            var next = remain > 0 ? this.pendingWrites.poll(remain, TimeUnit.NANOSECONDS) : this.pendingWrites.poll();
+            if (next == null) break;
+            group.add(next);
+            groupBytes += next.bytes;
+        }
+
+        commit(group);
+    }
+
+    private void commit(List<PendingWrite> group) {
+        var filled = new ArrayList<PendingWrite>(group.size());
+        try (var batch = dbSource.writeBatchFactory.getInstance()) {
+            for (var pendingWrite : group) {
+                // a write which can not be filled only fails itself, the save point drops its partial entries
+                batch.setSavePoint();
+                try {
+                    dbSource.fillBatch(batch, pendingWrite.saveBatch);
+                    batch.popSavePoint();
+                    filled.add(pendingWrite);
+                } catch (Throwable e) {
+                    batch.rollbackToSavePoint();
+                    logger.error("Failed to fill write of size:{} into group commit on db '{}'", pendingWrite.saveBatch.size(), dbSource.name, e);
+                    pendingWrite.future.completeExceptionally(e);
+                }
+            }
+            if (filled.isEmpty()) return;
+
+            dbSource.db.write(syncWriteOptions, batch);
+            for (var pendingWrite : filled) {
+                dbSource.invalidateObjectCache(pendingWrite.saveBatch);
+                pendingWrite.future.complete(null);
+            }
+        } catch (Throwable e) {
+            logger.error("Error in group commit on db '{}', group size:{}", dbSource.name, filled.size(), e);
+            for (var pendingWrite : filled) {
+                pendingWrite.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * stop the committer and flush whatever is still queued, must be called before the db is closed.
+     */
+    void close() {
+        try {
+            this.closeLock.writeLock().lock();
+            this.closed = true;
+        } finally {
+            this.closeLock.writeLock().unlock();
+        }
+        terminateAndFullAwait();
+        var remains = new ArrayList<PendingWrite>();
+        this.pendingWrites.drainTo(remains);
+        if (!remains.isEmpty()) {
+            commit(remains);
+        }
+        RocksDbSource.close(syncWriteOptions);
+    }
+
+    static class PendingWrite {
+
+        final List<Pair<Keyable, Persistable>> saveBatch;
+
+        final CompletableFuture<Void> future;
+
+        final long bytes;
+
+        PendingWrite(List<Pair<Keyable, Persistable>> saveBatch) {
+            this.saveBatch = saveBatch;
+            this.future = new CompletableFuture<>();
+            var bytes = 0L;
+            for (var pair : saveBatch) {
+                var value = pair.getRight().valueBytes();
+                bytes += pair.getLeft().keyBytes().length + (value == null ? 0 : value.length);
+            }
+            this.bytes = bytes;
+        }
+    }
+}
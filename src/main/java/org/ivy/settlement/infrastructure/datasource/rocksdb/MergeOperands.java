@@ -0,0 +1,76 @@
+package org.ivy.settlement.infrastructure.datasource.rocksdb;
+
+import org.ivy.settlement.infrastructure.rlp.RLP;
+import org.ivy.settlement.infrastructure.rlp.RLPView;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * description: encodes the operands of {@link RocksDbSource#merge} for the merge operator of
+ * the column family, see ColumnFamilySettings.MergeOperator.
+ *
+ * UINT64_ADD works on the 8 bytes little endian values (rocksdb fixed64) of UInt64Counter models,
+ * MAX compares bytewise so the values of its UInt64Max models are 8 bytes big endian. RLP_LIST_APPEND stores the concatenated rlp items without the
+ * list header, the header is put back by every byte[] read, getRaw returns the rlp list as it was put.
+ * the direct buffer get and put of RocksDbSource reject RLP_LIST_APPEND column families.
+ * @author carrot
+ */
+public final class MergeOperands {
+
+    // first prefix byte of a rlp list
+    static final int OFFSET_SHORT_LIST = 0xc0;
+
+    private MergeOperands() {
+    }
+
+    public static byte[] uint64Add(long delta) {
+        return ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN).putLong(delta).array();
+    }
+
+    public static long uint64Value(byte[] value) {
+        return value == null ? 0 : ByteBuffer.wrap(value).order(ByteOrder.LITTLE_ENDIAN).getLong();
+    }
+
+    public static byte[] max(long value) {
+        return ByteBuffer.allocate(Long.BYTES).putLong(value).array();
+    }
+
+    public static long maxValue(byte[] value) {
+        return value == null ? 0 : ByteBuffer.wrap(value).getLong();
+    }
+
+    /**
+     * @param encodedItem one rlp encoded item, appended to the list stored under the key
+     */
+    public static byte[] rlpAppend(byte[] encodedItem) {
+        return encodedItem;
+    }
+
+    /**
+     * stored form of a rlp list, i.e. its items without the list header
+     */
+    static byte[] stripListHeader(byte[] encodedList) {
+        if (encodedList == null) return null;
+        if (encodedList.length == 0 || (encodedList[0] & 0xFF) < OFFSET_SHORT_LIST) {
+            throw new IllegalArgumentException("value of a RLP_LIST_APPEND column family must be a rlp list");
+        }
+        var list = RLPView.of(encodedList);
+        if (list.getDataOffset() + list.getDataLength() != encodedList.length) {
+            throw new IllegalArgumentException("value of a RLP_LIST_APPEND column family must be exactly one rlp list");
+        }
+        return Arrays.copyOfRange(encodedList, list.getDataOffset(), encodedList.length);
+    }
+
+    /**
+     * rlp list from the stored, appended items
+     */
+    public static byte[] wrapListHeader(byte[] items) {
+        if (items == null) return null;
+        var header = RLP.encodeListHeader(items.length);
+        var list = Arrays.copyOf(header, header.length + items.length);
+        System.arraycopy(items, 0, list, header.length, items.length);
+        return list;
+    }
+}
@@ -0,0 +1,167 @@
+package org.ivy.settlement.infrastructure.datasource.rocksdb;
+
+import org.ivy.settlement.infrastructure.bytes.ByteUtil;
+import org.ivy.settlement.infrastructure.datasource.AbstractDbSource;
+import org.ivy.settlement.infrastructure.datasource.ColumnFamilySettings;
+import org.ivy.settlement.infrastructure.datasource.model.Persistable;
+import org.rocksdb.ColumnFamilyHandle;
+import org.rocksdb.CompactRangeOptions;
+import org.rocksdb.RocksDBException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongFunction;
+
+/**
+ * description: removes the heights older than ColumnFamilySettings.retainHeights from the column
+ * families which have a retention, run by the RetentionService every DbSettings.pruneInterval
+ * seconds or on demand by RocksDbSource.prune. the oldest and newest height (per chain for
+ * CHAIN_HEIGHT keys) are read, the span below the retained window is removed
+ * by deleteRange in chunks of DbSettings.pruneChunkHeights and then compacted, so the range
+ * tombstones are dropped together with the data and the disk space is given back.
+ *
+ * chunks are paced by DbSettings.pruneChunkPauseMillis and pruning waits while rocksdb delays
+ * or stops writes, foreground ingestion keeps priority.
+ * @author carrot
+ */
+class RetentionPruner {
+
+    private static final Logger logger = LoggerFactory.getLogger("db");
+
+    final RocksDbSource dbSource;
+
+    // counted down on shutdown, aborts a running round between two chunks
+    final CountDownLatch closeLatch = new CountDownLatch(1);
+
+    RetentionPruner(RocksDbSource dbSource) {
+        this.dbSource = dbSource;
+    }
+
+    /**
+     * @return number of heights removed over all column families
+     */
+    synchronized long pruneAll() {
+        var pruned = 0L;
+        for (var entry : dbSource.clazz2HandleTable.entrySet()) {
+            var cfSettings = dbSource.settings.getColumnFamilySettings(entry.getKey());
+            if (cfSettings.getRetainHeights() <= 0) continue;
+            try {
+                pruned += prune(entry.getKey(), entry.getValue(), cfSettings);
+            } catch (RocksDBException e) {
+                logger.error("Failed to prune {} of db '{}'", entry.getKey().getSimpleName(), dbSource.name, e);
+                throw new RuntimeException(e);
+            }
+        }
+        return pruned;
+    }
+
+    private long prune(Class<? extends Persistable> model, ColumnFamilyHandle handle, ColumnFamilySettings cfSettings) throws RocksDBException {
+        var pruned = 0L;
+        for (var span : spans(model, cfSettings.getKeyLayout())) {
+            var cutoff = span.latest - cfSettings.getRetainHeights() + 1;
+            if (span.oldest >= cutoff) continue;
+
+            LongFunction<byte[]> keyOf = cfSettings.getKeyLayout() == ColumnFamilySettings.KeyLayout.CHAIN_HEIGHT
+                    ? height -> AbstractDbSource.chainKey(span.chain, height)
+                    : ByteUtil::longToBytes;
+            var removed = pruneSpan(model, handle, keyOf, span.oldest, cutoff);
+            pruned += removed;
+            logger.info("pruned {} heights from {} of {} chain {} in db '{}'", removed, span.oldest, model.getSimpleName(), span.chain, dbSource.name);
+        }
+        return pruned;
+    }
+
+    private long pruneSpan(Class<? extends Persistable> model, ColumnFamilyHandle handle, LongFunction<byte[]> keyOf, long oldest, long cutoff) throws RocksDBException {
+        var chunkHeights = dbSource.settings.getPruneChunkHeights();
+        var from = oldest;
+        while (from < cutoff && !isClosed()) {
+            var to = cutoff - from > chunkHeights ? from + chunkHeights : cutoff;
+            awaitWritesNotStalled(handle);
+            dbSource.delRange(model, keyOf.apply(from), keyOf.apply(to));
+            from = to;
+            pause(dbSource.settings.getPruneChunkPauseMillis());
+        }
+        if (from == oldest) return 0;
+
+        // without compaction the range tombstones only hide the data, they do not free it
+        try (var compactOptions = new CompactRangeOptions()
+                .setExclusiveManualCompaction(false)
+                .setBottommostLevelCompaction(CompactRangeOptions.BottommostLevelCompaction.kForceOptimized)) {
+            dbSource.db.compactRange(handle, keyOf.apply(oldest), keyOf.apply(from), compactOptions);
+        }
+        return from - oldest;
+    }
+
+    private List<Span> spans(Class<? extends Persistable> model, ColumnFamilySettings.KeyLayout keyLayout) {
+        var spans = new ArrayList<Span>();
+        // bounds are collected first, an open iterator would keep the deleted files alive
+        try (var it = dbSource.newIterator(model)) {
+            if (keyLayout == ColumnFamilySettings.KeyLayout.HEIGHT) {
+                it.seekToFirst();
+                if (!it.isValid()) return spans;
+                var oldest = ByteBuffer.wrap(it.key()).getLong();
+                it.seekToLast();
+                spans.add(new Span(0, oldest, ByteBuffer.wrap(it.key()).getLong()));
+                return spans;
+            }
+
+            it.seekToFirst();
+            while (it.isValid()) {
+                var first = ByteBuffer.wrap(it.key());
+                var chain = first.getInt();
+                var oldest = first.getLong();
+                it.seekForPrev(AbstractDbSource.chainKey(chain, Long.MAX_VALUE));
+                spans.add(new Span(chain, oldest, ByteBuffer.wrap(it.key(), Integer.BYTES, Long.BYTES).getLong()));
+
+                var nextChain = ByteUtil.prefixUpperBound(ByteUtil.intToBytes(chain));
+                if (nextChain == null) break;
+                it.seek(nextChain);
+            }
+        }
+        return spans;
+    }
+
+    private void awaitWritesNotStalled(ColumnFamilyHandle handle) throws RocksDBException {
+        while (!isClosed()
+                && (dbSource.db.getLongProperty(handle, "rocksdb.is-write-stopped") > 0
+                || dbSource.db.getLongProperty(handle, "rocksdb.actual-delayed-write-rate") > 0)) {
+            pause(Math.max(dbSource.settings.getPruneChunkPauseMillis(), 100));
+        }
+    }
+
+    private void pause(long millis) {
+        try {
+            closeLatch.await(millis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean isClosed() {
+        return closeLatch.getCount() == 0;
+    }
+
+    void close() {
+        closeLatch.countDown();
+    }
+
+    static class Span {
+
+        final int chain;
+
+        final long oldest;
+
+        final long latest;
+
+        Span(int chain, long oldest, long latest) {
+            this.chain = chain;
+            this.oldest = oldest;
+            this.latest = latest;
+        }
+    }
+}
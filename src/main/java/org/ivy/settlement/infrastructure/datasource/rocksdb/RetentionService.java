@@ -0,0 +1,31 @@
+package org.ivy.settlement.infrastructure.datasource.rocksdb;
+
+import org.ivy.settlement.infrastructure.async.IrisSettlementWorker;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * description: runs a RetentionPruner round every DbSettings.pruneInterval seconds.
+ * @author carrot
+ */
+class RetentionService extends IrisSettlementWorker {
+
+    final RetentionPruner pruner;
+
+    RetentionService(RocksDbSource dbSource, RetentionPruner pruner) {
+        super(dbSource.name + "_retention");
+        this.pruner = pruner;
+    }
+
+    @Override
+    protected void doWork() throws Exception {
+        if (pruner.closeLatch.await(pruner.dbSource.settings.getPruneInterval(), TimeUnit.SECONDS)) return;
+        pruner.pruneAll();
+    }
+
+    void close() {
+        pruner.close();
+        terminateAndFullAwait();
+    }
+}
@@ -0,0 +1,76 @@
+package org.ivy.settlement.infrastructure.datasource.rocksdb;
+
+import org.ivy.settlement.infrastructure.datasource.model.Persistable;
+import org.rocksdb.ReadOptions;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.RocksIterator;
+import org.rocksdb.Slice;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * description: forward only cursor over a key range of one column family,
+ * values are decoded one by one while iterating. it owns the native iterator,
+ * read options and bound slices, so it must be closed after use.
+ * @author carrot
+ */
+public class RocksDbCursor<T extends Persistable> implements Iterator<T>, AutoCloseable {
+
+    final RocksIterator iterator;
+
+    final ReadOptions readOptions;
+
+    final Slice upperBound;
+
+    final Function<RocksIterator, T> decoder;
+
+    public RocksDbCursor(RocksIterator iterator, ReadOptions readOptions, Slice upperBound, Function<RocksIterator, T> decoder, byte[] from) {
+        this.iterator = iterator;
+        this.readOptions = readOptions;
+        this.upperBound = upperBound;
+        this.decoder = decoder;
+        if (from == null) {
+            this.iterator.seekToFirst();
+        } else {
+            this.iterator.seek(from);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (iterator.isValid()) return true;
+        try {
+            iterator.status();
+        } catch (RocksDBException e) {
+            throw new RuntimeException(e);
+        }
+        return false;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        var result = decoder.apply(iterator);
+        iterator.next();
+        return result;
+    }
+
+    public Stream<T> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(this::close);
+    }
+
+    @Override
+    public void close() {
+        RocksDbSource.close(iterator, readOptions, upperBound);
+    }
+}
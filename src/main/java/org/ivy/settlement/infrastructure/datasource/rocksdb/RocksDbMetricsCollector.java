@@ -0,0 +1,190 @@
+package org.ivy.settlement.infrastructure.datasource.rocksdb;
+
+import org.ivy.settlement.infrastructure.async.IrisSettlementWorker;
+import org.ivy.settlement.infrastructure.metrics.Metric;
+import org.rocksdb.ColumnFamilyHandle;
+import org.rocksdb.HistogramType;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.TickerType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * description: samples the RocksDB statistics and the per column family properties of a
+ * RocksDbSource at a fixed interval and hands them to the registered publishers.
+ * @author carrot
+ */
+class RocksDbMetricsCollector extends IrisSettlementWorker {
+
+    private static final Logger logger = LoggerFactory.getLogger("db");
+
+    static final TickerType[] TICKERS = {
+            TickerType.BLOCK_CACHE_HIT,
+            TickerType.BLOCK_CACHE_MISS,
+            TickerType.BLOCK_CACHE_INDEX_HIT,
+            TickerType.BLOCK_CACHE_INDEX_MISS,
+            TickerType.BLOCK_CACHE_FILTER_HIT,
+            TickerType.BLOCK_CACHE_FILTER_MISS,
+            TickerType.BLOCK_CACHE_DATA_HIT,
+            TickerType.BLOCK_CACHE_DATA_MISS,
+            TickerType.BLOOM_FILTER_USEFUL,
+            TickerType.MEMTABLE_HIT,
+            TickerType.MEMTABLE_MISS,
+            TickerType.NUMBER_KEYS_WRITTEN,
+            TickerType.NUMBER_KEYS_READ,
+            TickerType.BYTES_WRITTEN,
+            TickerType.BYTES_READ,
+            TickerType.STALL_MICROS,
+            TickerType.COMPACT_READ_BYTES,
+            TickerType.COMPACT_WRITE_BYTES,
+            TickerType.FLUSH_WRITE_BYTES,
+            TickerType.WAL_FILE_SYNCED,
+            TickerType.WAL_FILE_BYTES,
+            TickerType.BLOB_DB_BLOB_FILE_BYTES_WRITTEN,
+            TickerType.BLOB_DB_BLOB_FILE_BYTES_READ,
+            TickerType.BLOB_DB_GC_BYTES_RELOCATED
+    };
+
+    static final HistogramType[] HISTOGRAMS = {
+            HistogramType.DB_GET,
+            HistogramType.DB_WRITE,
+            HistogramType.DB_MULTIGET,
+            HistogramType.DB_SEEK,
+            HistogramType.WAL_FILE_SYNC_MICROS,
+            HistogramType.COMPACTION_TIME,
+            HistogramType.FLUSH_TIME
+    };
+
+    static final String[] CF_PROPERTIES = {
+            "rocksdb.estimate-pending-compaction-bytes",
+            "rocksdb.num-running-compactions",
+            "rocksdb.num-running-flushes",
+            "rocksdb.compaction-pending",
+            "rocksdb.mem-table-flush-pending",
+            "rocksdb.cur-size-all-mem-tables",
+            "rocksdb.size-all-mem-tables",
+            "rocksdb.num-immutable-mem-table",
+            "rocksdb.estimate-num-keys",
+            "rocksdb.estimate-live-data-size",
+            "rocksdb.total-sst-files-size",
+            "rocksdb.live-sst-files-size",
+            "rocksdb.actual-delayed-write-rate",
+            "rocksdb.is-write-stopped",
+            "rocksdb.num-blob-files",
+            "rocksdb.total-blob-file-size",
+            "rocksdb.live-blob-file-size",
+            "rocksdb.live-blob-file-garbage-size"
+    };
+
+    final RocksDbSource dbSource;
+
+    final long intervalMs;
+
+    final CountDownLatch closeLatch = new CountDownLatch(1);
+
+    RocksDbMetricsCollector(RocksDbSource dbSource, long intervalMs) {
+        super(dbSource.name + "_metrics");
+        this.dbSource = dbSource;
+        this.intervalMs = intervalMs;
+    }
+
+    @Override
+    protected void doWork() throws Exception {
+        if (closeLatch.await(intervalMs, TimeUnit.MILLISECONDS)) return;
+        if (dbSource.metricsPublishers.isEmpty()) return;
+
+        var metrics = collect(dbSource);
+        for (var publisher : dbSource.metricsPublishers) {
+            publisher.publish("rocksdb_" + dbSource.name, metrics);
+        }
+    }
+
+    /**
+     * one sample of the db, also taken on demand by RocksDbSource.collectMetrics without a running collector
+     */
+    static List<Metric> collect(RocksDbSource dbSource) {
+        var result = new ArrayList<Metric>();
+        var dbLabels = Map.of("db", dbSource.name);
+        var statistics = dbSource.statistics;
+
+        for (var ticker : TICKERS) {
+            result.add(Metric.counter(metricName(ticker.name()), dbLabels, statistics.getTickerCount(ticker)));
+        }
+
+        // bytes written to storage by flushes and compactions for every byte written by the application.
+        // the blob files are written by the flushes and compactions and already counted in their bytes
+        var userBytes = statistics.getTickerCount(TickerType.BYTES_WRITTEN);
+        var storageBytes = statistics.getTickerCount(TickerType.FLUSH_WRITE_BYTES)
+                + statistics.getTickerCount(TickerType.COMPACT_WRITE_BYTES);
+        result.add(Metric.gauge("rocksdb_write_amplification", dbLabels, userBytes == 0 ? 0 : (double) storageBytes / userBytes));
+
+        for (var histogram : HISTOGRAMS) {
+            var data = statistics.getHistogramData(histogram);
+            var name = metricName(histogram.name()) + "_micros";
+            result.add(Metric.summary(name, dbLabels, "0.5", data.getMedian()));
+            result.add(Metric.summary(name, dbLabels, "0.95", data.getPercentile95()));
+            result.add(Metric.summary(name, dbLabels, "0.99", data.getPercentile99()));
+            result.add(Metric.summary(name, dbLabels, "1", data.getMax()));
+            result.add(Metric.summarySum(name, dbLabels, data.getSum()));
+            result.add(Metric.summaryCount(name, dbLabels, data.getCount()));
+        }
+
+        var blockCache = dbSource.getBlockCacheStats();
+        result.add(Metric.gauge("rocksdb_block_cache_capacity_bytes", dbLabels, blockCache.getCapacity()));
+        result.add(Metric.gauge("rocksdb_block_cache_usage_bytes", dbLabels, blockCache.getUsage()));
+        result.add(Metric.gauge("rocksdb_block_cache_pinned_usage_bytes", dbLabels, blockCache.getPinnedUsage()));
+        result.add(Metric.gauge("rocksdb_block_cache_hit_ratio", dbLabels, blockCache.hitRatio()));
+
+        for (var entry : dbSource.chainHandles.entrySet()) {
+            var cfLabels = Map.of("db", dbSource.name, "cf", entry.getKey().getLeft().getSimpleName(), "chain", String.valueOf(entry.getKey().getRight()));
+            collectProperties(dbSource, result, entry.getValue(), cfLabels);
+        }
+
+        for (var entry : dbSource.clazz2HandleTable.entrySet()) {
+            var cfLabels = Map.of("db", dbSource.name, "cf", entry.getKey().getSimpleName());
+            collectProperties(dbSource, result, entry.getValue(), cfLabels);
+
+            var objectCache = dbSource.getObjectCacheStats(entry.getKey());
+            if (objectCache != null) {
+                result.add(Metric.gauge("object_cache_bytes", cfLabels, objectCache.getBytes()));
+                result.add(Metric.gauge("object_cache_entries", cfLabels, objectCache.getEntries()));
+                result.add(Metric.counter("object_cache_hit", cfLabels, objectCache.getHit()));
+                result.add(Metric.counter("object_cache_miss", cfLabels, objectCache.getMiss()));
+                result.add(Metric.counter("object_cache_evictions", cfLabels, objectCache.getEvictions()));
+            }
+        }
+        return result;
+    }
+
+    private static void collectProperties(RocksDbSource dbSource, List<Metric> result, ColumnFamilyHandle handle, Map<String, String> cfLabels) {
+        for (var property : CF_PROPERTIES) {
+            try {
+                result.add(Metric.gauge(metricName(property), cfLabels, dbSource.db.getLongProperty(handle, property)));
+            } catch (RocksDBException e) {
+                logger.debug("property {} not available for db '{}'", property, dbSource.name, e);
+            }
+        }
+        try {
+            result.add(Metric.gauge(metricName("rocksdb.num-files-at-level0"), cfLabels, dbSource.numFilesAtLevel0(handle)));
+        } catch (RocksDBException e) {
+            logger.debug("property rocksdb.num-files-at-level0 not available for db '{}'", dbSource.name, e);
+        }
+    }
+
+    private static String metricName(String name) {
+        var lower = name.toLowerCase(Locale.ROOT).replace('.', '_').replace('-', '_');
+        return lower.startsWith("rocksdb_") ? lower : "rocksdb_" + lower;
+    }
+
+    void close() {
+        closeLatch.countDown();
+        terminateAndFullAwait();
+    }
+}
@@ -0,0 +1,111 @@
+package org.ivy.settlement.infrastructure.datasource.rocksdb;
+
+import org.ivy.settlement.infrastructure.bytes.ByteUtil;
+import org.ivy.settlement.infrastructure.datasource.AbstractDbSource;
+import org.ivy.settlement.infrastructure.datasource.model.Keyable;
+import org.ivy.settlement.infrastructure.datasource.model.Persistable;
+import org.rocksdb.ReadOptions;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.Snapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * description: read session pinned to one RocksDB snapshot, every get and scan of the session,
+ * whatever the column family, observes the same committed state. a batch written by
+ * updateBatch is either fully visible or not at all. not thread safe, one session per reader.
+ * closing the session closes its open scans and releases the snapshot.
+ * @author carrot
+ */
+public class RocksDbSnapshot implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger("db");
+
+    final RocksDbSource dbSource;
+
+    final Snapshot snapshot;
+
+    final ReadOptions readOptions;
+
+    final List<RocksDbCursor<?>> cursors = new ArrayList<>();
+
+    boolean closed;
+
+    RocksDbSnapshot(RocksDbSource dbSource) {
+        this.dbSource = dbSource;
+        this.snapshot = dbSource.db.getSnapshot();
+        this.readOptions = new ReadOptions()
+                .setSnapshot(snapshot)
+                .setVerifyChecksums(false);
+    }
+
+    public long getSequenceNumber() {
+        return snapshot.getSequenceNumber();
+    }
+
+    public byte[] getRaw(Class<?> model, Keyable keyable) {
+        try {
+            var key = keyable.keyBytes();
+            return dbSource.rawValue(model, key, dbSource.db.get(dbSource.clazz2HandleTable.get(model), readOptions, key));
+        } catch (RocksDBException e) {
+            logger.error("Failed to get from snapshot of db '{}'", dbSource.name, e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    public <T extends Persistable> T get(Class<T> model, Keyable keyable) {
+        return dbSource.codecRegistry.decode(model, getRaw(model, keyable));
+    }
+
+    public List<byte[]> batchGetRaw(Class<?> model, List<byte[]> keys) {
+        try {
+            var handles = Collections.nCopies(keys.size(), dbSource.clazz2HandleTable.get(model));
+            var values = dbSource.db.multiGetAsList(readOptions, handles, keys);
+            if (dbSource.transformsValues(model)) {
+                for (var i = 0; i < values.size(); i++) {
+                    values.set(i, dbSource.rawValue(model, keys.get(i), values.get(i)));
+                }
+            }
+            return values;
+        } catch (RocksDBException e) {
+            logger.error("Failed to multiGet from snapshot of db '{}'", dbSource.name, e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    public <T extends Persistable> Stream<T> scan(Class<T> model, byte[] from, byte[] to) {
+        return register(dbSource.cursor(model, from, to, false, snapshot)).stream();
+    }
+
+    public <T extends Persistable> Stream<T> scanPrefix(Class<T> model, byte[] prefix) {
+        return register(dbSource.cursor(model, prefix, ByteUtil.prefixUpperBound(prefix), dbSource.isPrefixSeekable(model, prefix), snapshot)).stream();
+    }
+
+    public <T extends Persistable> Stream<T> scanChain(Class<T> model, int chain, long fromHeight, long toHeight) {
+        var from = AbstractDbSource.chainKey(chain, fromHeight);
+        var to = ByteUtil.prefixUpperBound(AbstractDbSource.chainKey(chain, toHeight));
+        return register(dbSource.cursor(model, from, to, dbSource.isPrefixSeekable(model, ByteUtil.intToBytes(chain)), snapshot)).stream();
+    }
+
+    private <T extends Persistable> RocksDbCursor<T> register(RocksDbCursor<T> cursor) {
+        this.cursors.add(cursor);
+        return cursor;
+    }
+
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        for (var cursor : cursors) {
+            cursor.close();
+        }
+        cursors.clear();
+        dbSource.db.releaseSnapshot(snapshot);
+        RocksDbSource.close(readOptions);
+    }
+}
@@ -1,19 +1,47 @@
 package org.ivy.settlement.infrastructure.datasource.rocksdb;
 
 import org.apache.commons.lang3.tuple.Pair;
+import org.ivy.settlement.infrastructure.bytes.ByteArrayWrapper;
+import org.ivy.settlement.infrastructure.bytes.ByteUtil;
+import org.ivy.settlement.infrastructure.bytes.FastByteComparisons;
+import org.ivy.settlement.infrastructure.collections.WeightedLRUCache;
 import org.ivy.settlement.infrastructure.datasource.AbstractDbSource;
+import org.ivy.settlement.infrastructure.datasource.ColumnFamilySettings;
 import org.ivy.settlement.infrastructure.datasource.DbSettings;
+import org.ivy.settlement.infrastructure.datasource.MemSizeEstimator;
+import org.ivy.settlement.infrastructure.datasource.model.Immutable;
 import org.ivy.settlement.infrastructure.datasource.model.Keyable;
 import org.ivy.settlement.infrastructure.datasource.model.Persistable;
+import org.ivy.settlement.infrastructure.datasource.model.UInt64Counter;
+import org.ivy.settlement.infrastructure.datasource.model.UInt64Max;
+import org.ivy.settlement.infrastructure.metrics.Metric;
+import org.ivy.settlement.infrastructure.metrics.MetricsPublisher;
 import org.rocksdb.*;
 import org.rocksdb.util.SizeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 import static ch.qos.logback.core.encoder.ByteArrayUtil.toHexString;
 
@@ -28,17 +56,90 @@ public class RocksDbSource extends AbstractDbSource {
 
     public static final int DB_MAX_RETRY_TIME = 10;
 
+    // bulk scans read sequentially, let the table reader prefetch instead of issuing one read per block
+    static final long SCAN_READAHEAD_SIZE = 2 * SizeUnit.MB;
+
+    // records buffered and sorted in memory before they are written to one external sst file
+    static final long BULK_LOAD_CHUNK_SIZE = 256 * SizeUnit.MB;
+
+    static final String CHAIN_CF_SEPARATOR = "#";
+
     String name;
 
+    // directory of the db instance, i.e. dbPath/name
+    String path;
+
     // initialized for standalone test
 
     ReadOptions readOpts;
 
+    // full column family iterations, must not be restricted by a prefix extractor
+    ReadOptions totalOrderReadOpts;
+
     DBOptions dbOptions;
 
     DbSettings settings;
 
-    //CipherKey cipherKey;
+    // block cache shared by all column families
+    Cache blockCache;
+
+    Statistics statistics;
+
+    // null unless DbSettings.rateLimit > 0
+    RateLimiter rateLimiter;
+
+    ColumnFamilyOptionsFactory columnFamilyOptionsFactory;
+
+    final Map<Class<? extends Persistable>, ColumnFamilyOptions> clazz2OptionsTable = new HashMap<>();
+
+    // decoded values of the column families with ColumnFamilySettings.objectCacheSize > 0,
+    // only Immutable models so a hit can hand the same instance to every caller
+    final Map<Class<? extends Persistable>, WeightedLRUCache<ByteArrayWrapper, Persistable>> objectCaches = new HashMap<>();
+
+    // column family name of every model passed to the constructor
+    final Map<Class<? extends Persistable>, String> clazz2NameTable = new HashMap<>();
+
+    // column families of single chains, created and dropped at runtime, see createChainColumnFamily
+    final Map<Pair<Class<? extends Persistable>, Integer>, ColumnFamilyHandle> chainHandles = new ConcurrentHashMap<>();
+
+    // column families with ColumnFamilySettings.MergeOperator.RLP_LIST_APPEND, stored without the
+    // list header which every byte[] read puts back
+    final Set<Class<? extends Persistable>> listAppendModels = new HashSet<>();
+
+    // null unless DbSettings.groupCommit is enabled
+    GroupCommitWriter groupCommitWriter;
+
+    final List<MetricsPublisher> metricsPublishers = new CopyOnWriteArrayList<>();
+
+    // null unless a column family has ColumnFamilySettings.Durability.ASYNC
+    WalFlushWorker walFlushWorker;
+
+    // directory of the secondary instance, null for the primary
+    final String secondaryPath;
+
+    // null for the primary
+    SecondaryCatchUpWorker secondaryCatchUpWorker;
+
+    // started by the first backpressure listener
+    BackpressureMonitor backpressureMonitor;
+
+    // null unless DbSettings.metricsInterval > 0
+    RocksDbMetricsCollector metricsCollector;
+
+    // null unless a column family has ColumnFamilySettings.retainHeights > 0
+    RetentionPruner retentionPruner;
+
+    // null unless retentionPruner is set and DbSettings.pruneInterval > 0
+    RetentionService retentionService;
+
+    // null unless a column family has ColumnFamilySettings.encrypted
+    ValueCipher valueCipher;
+
+    // encrypted models and the associated data of their values, see ValueCipher.associatedData
+    final Map<Class<? extends Persistable>, byte[]> encryptedModels = new HashMap<>();
+
+    // associated data of the chain column families of encrypted models, named apart from the model's column family
+    final Map<Pair<Class<? extends Persistable>, Integer>, byte[]> encryptedChains = new ConcurrentHashMap<>();
 
     // The native RocksDB insert/update/delete are normally thread-safe
     // However close operation is not thread-safe.
@@ -50,14 +151,72 @@ public class RocksDbSource extends AbstractDbSource {
 //    }
 
     public RocksDbSource(String name, Map<String, Class<? extends Persistable>> columnFamilies, String dbPath, DbSettings settings) {
+        this(name, columnFamilies, dbPath, null, settings);
+    }
+
+    private RocksDbSource(String name, Map<String, Class<? extends Persistable>> columnFamilies, String dbPath, String secondaryPath, DbSettings settings) {
         this.name = name;
+        this.secondaryPath = secondaryPath;
         this.settings = settings;
         this.writeBatchFactory = new WriteBatchFactory();
-        //this.cipherKey = config.getCipherKey();
         logger.debug("New RocksDbSource: " + name);
         init(columnFamilies, dbPath);
     }
 
+    /**
+     * open the db owned by another process on the same host as read only secondary, e.g. for
+     * reporting and api processes. it reads the primary's files and follows its writes through
+     * {@link #tryCatchUpWithPrimary}, secondaryPath holds the secondary's own info log.
+     * writes fail, column families the primary creates later are seen after reopening.
+     */
+    public static RocksDbSource openAsSecondary(String name, Map<String, Class<? extends Persistable>> columnFamilies, String dbPath, String secondaryPath, DbSettings settings) {
+        return new RocksDbSource(name, columnFamilies, dbPath, secondaryPath, settings);
+    }
+
+    /**
+     * bootstrap a replica from a checkpoint made by {@link #createCheckpoint}: the checkpoint is
+     * restored into dbPath/name, which must not exist yet, and the db is opened from there.
+     */
+    public static RocksDbSource openFromCheckpoint(String checkpointDir, String name, Map<String, Class<? extends Persistable>> columnFamilies, String dbPath, DbSettings settings) {
+        restoreCheckpoint(checkpointDir, Paths.get(dbPath, name).toString());
+        return new RocksDbSource(name, columnFamilies, dbPath, settings);
+    }
+
+    /**
+     * restore a checkpoint into targetDir. immutable sst and blob files are hard linked when the
+     * checkpoint lives on the same file system (copied otherwise), the small files the opened db
+     * rewrites (CURRENT, MANIFEST, OPTIONS, WAL) are always copied, so the checkpoint stays reusable.
+     */
+    public static void restoreCheckpoint(String checkpointDir, String targetDir) {
+        var source = Paths.get(checkpointDir);
+        var target = Paths.get(targetDir);
+        try {
+            if (Files.exists(target)) {
+                throw new IllegalStateException("restore target " + target + " already exists");
+            }
+            Files.createDirectories(target);
+            try (var files = Files.list(source)) {
+                for (var file : (Iterable<Path>) files::iterator) {
+                    var fileName = file.getFileName().toString();
+                    var dest = target.resolve(fileName);
+                    if (fileName.endsWith(".sst") || fileName.endsWith(".blob")) {
+                        try {
+                            Files.createLink(dest, file);
+                            continue;
+                        } catch (IOException | UnsupportedOperationException e) {
+                            logger.debug("Can't link {}, fall back to copy", file, e);
+                        }
+                    }
+                    Files.copy(file, dest);
+                }
+            }
+            logger.info("Restored checkpoint {} into {}", source, target);
+        } catch (IOException e) {
+            logger.error("Failed to restore checkpoint {} into {}", source, target, e);
+            throw new RuntimeException(e);
+        }
+    }
+
     private void init(Map<String, Class<? extends Persistable>> columnFamilies, String dbPath) {
         try {
 
@@ -78,71 +237,310 @@ public class RocksDbSource extends AbstractDbSource {
                     .setInfoLogLevel(InfoLogLevel.ERROR_LEVEL)
                     .setMaxSubcompactions(settings.getMaxThreads());
 
+            statistics = new Statistics();
+            statistics.setStatsLevel(StatsLevel.EXCEPT_DETAILED_TIMERS);
+            dbOptions.setStatistics(statistics);
+
+            if (settings.getRateLimit() > 0) {
+                // flushes and compactions share the budget, auto tune lowers it while there is little to do
+                rateLimiter = new RateLimiter(settings.getRateLimit() * SizeUnit.MB, 100_000, 10, RateLimiterMode.WRITES_ONLY, settings.isRateLimitAutoTune());
+                dbOptions.setRateLimiter(rateLimiter);
+            }
+
 
             // read options
             readOpts = new ReadOptions();
             readOpts = readOpts.setPrefixSameAsStart(true)
                     .setVerifyChecksums(false);
+            totalOrderReadOpts = new ReadOptions()
+                    .setTotalOrderSeek(true)
+                    .setVerifyChecksums(false);
 
-            // key prefix for state node lookups
-            //options.useFixedLengthPrefixExtractor(NodeKeyCompositor.PREFIX_BYTES);
-
-            //BlockBasedTable 是 SSTable 的默认表格式。
-            var blockBasedTableConfig = new BlockBasedTableConfig();
-            blockBasedTableConfig
-                    .setCacheNumShardBits(2)
-                    .setBlockSizeDeviation(10)
-                    .setBlockRestartInterval(64)
-                    .setBlockCacheSize(-1);
-                    //.setBlockCacheSize(100_000 * SizeUnit.KB)
-            if (settings.isBloomFilterFlag()) {
-                blockBasedTableConfig.setFilter(new BloomFilter(10, false));
-            }
-            // .setBlockCacheCompressedSize(32 * SizeUnit.KB);
+            // key prefix extractors are configured per column family, see ColumnFamilySettings.prefixLength
 
-            var columnFamilyOptions = new ColumnFamilyOptions()
-                    .setTableFormatConfig(blockBasedTableConfig)
-                    .setMaxWriteBufferNumber(4)
-                    .setMinWriteBufferNumberToMerge(4)
-                    .setWriteBufferSize(settings.getWriteBufferSize() * SizeUnit.MB);
+            blockCache = newBlockCache();
+            columnFamilyOptionsFactory = new ColumnFamilyOptionsFactory(settings, blockCache);
 
             var columnFamilyDescriptors = new ArrayList<ColumnFamilyDescriptor>();
-            columnFamilyDescriptors.add(new ColumnFamilyDescriptor(RocksDB.DEFAULT_COLUMN_FAMILY, columnFamilyOptions));
+            columnFamilyDescriptors.add(new ColumnFamilyDescriptor(RocksDB.DEFAULT_COLUMN_FAMILY, columnFamilyOptionsFactory.getInstance(null)));
 
 
-            for (var name : columnFamilies.keySet()) {
-                columnFamilyDescriptors.add(new ColumnFamilyDescriptor(name.getBytes(), columnFamilyOptions));
+            for (var entry : columnFamilies.entrySet()) {
+                var columnFamilyOptions = columnFamilyOptionsFactory.getInstance(entry.getValue());
+                clazz2OptionsTable.put(entry.getValue(), columnFamilyOptions);
+                clazz2NameTable.put(entry.getValue(), entry.getKey());
+                columnFamilyDescriptors.add(new ColumnFamilyDescriptor(entry.getKey().getBytes(), columnFamilyOptions));
             }
 
 
-            var path = Paths.get(dbPath, name).toString();
-            db = RocksDB.open(dbOptions, path, columnFamilyDescriptors, columnFamilyHandles);
+            path = Paths.get(dbPath, name).toString();
+            // every existing column family has to be opened, including the chain column families created at runtime
+            for (var cfName : existingColumnFamilies()) {
+                if (Arrays.equals(cfName, RocksDB.DEFAULT_COLUMN_FAMILY) || columnFamilies.containsKey(new String(cfName))) continue;
+                var chainKey = parseChainColumnFamily(columnFamilies, new String(cfName));
+                var columnFamilyOptions = chainKey == null ? columnFamilyOptionsFactory.getInstance(null) : clazz2OptionsTable.get(chainKey.getLeft());
+                columnFamilyDescriptors.add(new ColumnFamilyDescriptor(cfName, columnFamilyOptions));
+            }
+            if (isSecondary()) {
+                // a secondary keeps every table file it ever opened, so it may not limit open files
+                dbOptions.setMaxOpenFiles(-1);
+                db = RocksDB.openAsSecondary(dbOptions, path, secondaryPath, columnFamilyDescriptors, columnFamilyHandles);
+            } else if (settings.isOptimisticTransactions()) {
+                db = OptimisticTransactionDB.open(dbOptions, path, columnFamilyDescriptors, columnFamilyHandles);
+            } else {
+                db = RocksDB.open(dbOptions, path, columnFamilyDescriptors, columnFamilyHandles);
+            }
 
             initProcessTable(columnFamilies, columnFamilyDescriptors);
+
+            if (isSecondary()) {
+                secondaryCatchUpWorker = new SecondaryCatchUpWorker(this, settings.getSecondaryCatchUpInterval());
+                secondaryCatchUpWorker.start();
+            } else {
+                startWriteWorkers(columnFamilies);
+            }
+
+            if (settings.getMetricsInterval() > 0) {
+                metricsCollector = new RocksDbMetricsCollector(this, settings.getMetricsInterval() * 1000L);
+                metricsCollector.start();
+            }
         } catch (Exception e) {
-            close(db, dbOptions);
+            logger.error("Failed to open db '{}'", name, e);
+            // workers started before the failure use the db, they are stopped before it is closed
+            stopWorkers();
+            for (final var columnFamilyHandle : columnFamilyHandles) {
+                close(columnFamilyHandle);
+            }
+            close(db, readOpts, totalOrderReadOpts, dbOptions, columnFamilyOptionsFactory, blockCache, statistics, rateLimiter);
             throw new RuntimeException(e);
         }
 
     }
 
-    private void initProcessTable(Map<String, Class<? extends Persistable>> columnFamilies, List<ColumnFamilyDescriptor> columnFamilyDescriptors) throws NoSuchMethodException {
+    private Cache newBlockCache() {
+        var capacity = settings.getBlockCacheSize() * SizeUnit.MB;
+        return switch (settings.getBlockCacheType()) {
+            case HYPER_CLOCK -> new HyperClockCache(capacity, 0, settings.getBlockCacheShardBits(), false);
+            // reserve a high priority pool so index and filter blocks are evicted last
+            case LRU -> new LRUCache(capacity, settings.getBlockCacheShardBits(), false, settings.isCacheIndexAndFilterBlocks() ? 0.1 : 0.0);
+        };
+    }
+
+    public BlockCacheStats getBlockCacheStats() {
+        return new BlockCacheStats(
+                settings.getBlockCacheSize() * SizeUnit.MB,
+                blockCache.getUsage(),
+                blockCache.getPinnedUsage(),
+                statistics.getTickerCount(TickerType.BLOCK_CACHE_HIT),
+                statistics.getTickerCount(TickerType.BLOCK_CACHE_MISS),
+                statistics.getTickerCount(TickerType.BLOCK_CACHE_INDEX_HIT),
+                statistics.getTickerCount(TickerType.BLOCK_CACHE_INDEX_MISS),
+                statistics.getTickerCount(TickerType.BLOCK_CACHE_FILTER_HIT),
+                statistics.getTickerCount(TickerType.BLOCK_CACHE_FILTER_MISS),
+                statistics.getTickerCount(TickerType.BLOCK_CACHE_DATA_HIT),
+                statistics.getTickerCount(TickerType.BLOCK_CACHE_DATA_MISS));
+    }
+
+    private void initProcessTable(Map<String, Class<? extends Persistable>> columnFamilies, List<ColumnFamilyDescriptor> columnFamilyDescriptors) {
         //skip default column
         var i = 1;
         for (; i < columnFamilyDescriptors.size(); i++) {
             var name = new String(columnFamilyDescriptors.get(i).getName());
-            clazz2HandleTable.put(columnFamilies.get(name), this.columnFamilyHandles.get(i));
-            clazz2ConstructorTable.put(columnFamilies.get(name), columnFamilies.get(name).getDeclaredConstructor(byte[].class));
+            var model = columnFamilies.get(name);
+            if (model == null) {
+                var chainKey = parseChainColumnFamily(columnFamilies, name);
+                if (chainKey != null) {
+                    chainHandles.put(chainKey, this.columnFamilyHandles.get(i));
+                } else {
+                    logger.warn("db '{}' has unknown column family {}, it is opened but not used", this.name, name);
+                }
+                continue;
+            }
+            clazz2HandleTable.put(model, this.columnFamilyHandles.get(i));
+            codecRegistry.registerDefault(model);
+            checkMergeOperator(model, name);
+            if (settings.getColumnFamilySettings(model).getMergeOperator() == ColumnFamilySettings.MergeOperator.RLP_LIST_APPEND) {
+                listAppendModels.add(model);
+            }
+            if (settings.getColumnFamilySettings(model).isEncrypted()) {
+                registerEncrypted(model, name);
+            }
+            var objectCacheSize = settings.getColumnFamilySettings(model).getObjectCacheSize();
+            if (objectCacheSize > 0) {
+                if (!Immutable.class.isAssignableFrom(model)) {
+                    throw new IllegalArgumentException("column family " + name + " with an object cache must store an Immutable model, not " + model.getSimpleName());
+                }
+                objectCaches.put(model, new WeightedLRUCache<>(objectCacheSize, MemSizeEstimator.ByteArrayWrapperEstimator, MemSizeEstimator.PersistableEstimator));
+            }
+        }
+        // the chain column families may be listed before the column family of their model
+        for (var chainKey : chainHandles.keySet()) {
+            registerEncryptedChain(chainKey, clazz2NameTable.get(chainKey.getLeft()) + CHAIN_CF_SEPARATOR + chainKey.getRight());
+        }
+    }
+
+    private void startWriteWorkers(Map<String, Class<? extends Persistable>> columnFamilies) {
+        if (settings.isGroupCommit() || hasDurability(columnFamilies, ColumnFamilySettings.Durability.GROUP_SYNC)) {
+            groupCommitWriter = new GroupCommitWriter(this, settings.getGroupCommitWindowMicros(), settings.getGroupCommitMaxBytes());
+            groupCommitWriter.start();
+        }
+
+        if (hasDurability(columnFamilies, ColumnFamilySettings.Durability.ASYNC)) {
+            walFlushWorker = new WalFlushWorker(this, settings.getWalFlushInterval());
+            walFlushWorker.start();
+        }
+
+        var hasRetention = columnFamilies.values().stream().anyMatch(model -> settings.getColumnFamilySettings(model).getRetainHeights() > 0);
+        if (hasRetention) {
+            retentionPruner = new RetentionPruner(this);
+        }
+        if (hasRetention && settings.getPruneInterval() > 0) {
+            retentionService = new RetentionService(this, retentionPruner);
+            retentionService.start();
+        }
+    }
+
+    public boolean isSecondary() {
+        return secondaryPath != null;
+    }
+
+    /**
+     * replay the changes the primary made since the last catch up, done periodically by the
+     * secondary itself every DbSettings.secondaryCatchUpInterval millis. the object caches are
+     * cleared afterwards, the primary's writes do not invalidate them.
+     */
+    public void tryCatchUpWithPrimary() {
+        try {
+            db.tryCatchUpWithPrimary();
+            for (var objectCache : objectCaches.values()) {
+                objectCache.invalidateIf(key -> true);
+            }
+        } catch (RocksDBException e) {
+            logger.error("Failed to catch up secondary db '{}' with its primary", name, e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    private boolean hasDurability(Map<String, Class<? extends Persistable>> columnFamilies, ColumnFamilySettings.Durability durability) {
+        return columnFamilies.values().stream().anyMatch(model -> durabilityOf(model) == durability);
+    }
+
+    private List<byte[]> existingColumnFamilies() throws RocksDBException {
+        if (!Files.exists(Paths.get(path, "CURRENT"))) return List.of();
+        try (var options = new Options()) {
+            return RocksDB.listColumnFamilies(options, path);
+        }
+    }
+
+    /**
+     * column families of a chain are named [column family name of the model]#[chain]
+     */
+    private static Pair<Class<? extends Persistable>, Integer> parseChainColumnFamily(Map<String, Class<? extends Persistable>> columnFamilies, String cfName) {
+        var separator = cfName.lastIndexOf(CHAIN_CF_SEPARATOR);
+        if (separator < 0) return null;
+        var model = columnFamilies.get(cfName.substring(0, separator));
+        if (model == null) return null;
+        try {
+            return Pair.of(model, Integer.parseInt(cfName.substring(separator + 1)));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * the publisher receives a snapshot of {@link #collectMetrics()} every DbSettings.metricsInterval seconds
+     */
+    public void addMetricsPublisher(MetricsPublisher publisher) {
+        this.metricsPublishers.add(publisher);
+    }
+
+    /**
+     * rocksdb tickers and latency histograms, block cache and object cache usage and
+     * the per column family compaction, memtable and stall properties.
+     */
+    public List<Metric> collectMetrics() {
+        return RocksDbMetricsCollector.collect(this);
+    }
+
+    /**
+     * current write pressure, read from the compaction and memtable properties of every column family,
+     * the chain column families included. cheap enough to be queried before each ingestion batch.
+     */
+    public Backpressure getBackpressure() {
+        var pressure = 0d;
+        var pendingCompactionBytes = 0L;
+        var level0Files = 0L;
+        var stop = false;
+        var handles = new ArrayList<Pair<Class<? extends Persistable>, ColumnFamilyHandle>>();
+        clazz2HandleTable.forEach((model, handle) -> handles.add(Pair.of(model, handle)));
+        // a chain column family is created with the options of its model, the stall triggers of those
+        // options apply to it unless setChainOptions changed them, which is-write-stopped still reflects
+        chainHandles.forEach((chainKey, handle) -> handles.add(Pair.of(chainKey.getLeft(), handle)));
+        try {
+            for (var entry : handles) {
+                var handle = entry.getValue();
+                var options = clazz2OptionsTable.get(entry.getKey());
+                var pending = db.getLongProperty(handle, "rocksdb.estimate-pending-compaction-bytes");
+                var l0 = numFilesAtLevel0(handle);
+                pendingCompactionBytes = Math.max(pendingCompactionBytes, pending);
+                level0Files = Math.max(level0Files, l0);
+                if (options.softPendingCompactionBytesLimit() > 0) {
+                    pressure = Math.max(pressure, (double) pending / options.softPendingCompactionBytesLimit());
+                }
+                pressure = Math.max(pressure, (double) l0 / options.level0SlowdownWritesTrigger());
+                stop |= options.hardPendingCompactionBytesLimit() > 0 && pending >= options.hardPendingCompactionBytesLimit()
+                        || l0 >= options.level0StopWritesTrigger();
+            }
+            var writeStopped = db.getLongProperty("rocksdb.is-write-stopped") > 0;
+            var writeDelayed = db.getLongProperty("rocksdb.actual-delayed-write-rate") > 0;
+
+            Backpressure.Level level;
+            if (writeStopped || stop) {
+                level = Backpressure.Level.STOP;
+            } else if (writeDelayed || pressure >= settings.getBackpressureThreshold()) {
+                level = Backpressure.Level.SLOW_DOWN;
+            } else {
+                level = Backpressure.Level.NONE;
+            }
+            return new Backpressure(level, pressure, pendingCompactionBytes, level0Files, writeDelayed, writeStopped);
+        } catch (RocksDBException e) {
+            logger.error("Failed to read backpressure of db '{}'", name, e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * rocksdb.num-files-at-level&lt;N&gt; is only available as a string property, getLongProperty fails on it
+     */
+    long numFilesAtLevel0(ColumnFamilyHandle handle) throws RocksDBException {
+        return Long.parseLong(db.getProperty(handle, "rocksdb.num-files-at-level0"));
+    }
+
+    /**
+     * the listener is called from a background thread whenever the backpressure level changes
+     */
+    public synchronized void addBackpressureListener(Consumer<Backpressure> listener) {
+        if (backpressureMonitor == null) {
+            backpressureMonitor = new BackpressureMonitor(this);
+            backpressureMonitor.start();
         }
+        backpressureMonitor.listeners.add(listener);
+    }
+
+    /**
+     * hit rate and memory of the object cache of the model, null when it has none.
+     */
+    public WeightedLRUCache.Stats getObjectCacheStats(Class<? extends Persistable> model) {
+        var objectCache = objectCaches.get(model);
+        return objectCache == null ? null : objectCache.stats();
     }
 
 
     public byte[] getRaw(Class<?> model, Keyable keyable) {
         try {
             var handle = clazz2HandleTable.get(model);
-            //var encryptedKey = cipherKey.encrypt(keyable.keyBytes());
-            return db.get(handle, readOpts, keyable.keyBytes());
-            //return cipherKey.decrypt(ret);
+            var key = keyable.keyBytes();
+            return rawValue(model, key, db.get(handle, readOpts, key));
         } catch (Exception e) {
             logger.error("Failed to get from db '{}'", name, e);
             hintOnTooManyOpenFiles(e);
@@ -150,15 +548,24 @@ public class RocksDbSource extends AbstractDbSource {
         }
     }
 
-    public Persistable get(Class<?> model, Keyable keyable) {
+    public <T extends Persistable> T get(Class<T> model, Keyable keyable) {
         try {
             var handle = clazz2HandleTable.get(model);
-            //var encryptedKey = cipherKey.encrypt(keyable.keyBytes());
-            var ret = db.get(handle, readOpts, keyable.keyBytes());
-            if (ret == null) {
-                return null;
+            var objectCache = objectCaches.get(model);
+            if (objectCache == null) {
+                var keyBytes = keyable.keyBytes();
+                return codecRegistry.decode(model, rawValue(model, keyBytes, db.get(handle, readOpts, keyBytes)));
             }
-            return (Persistable) clazz2ConstructorTable.get(model).newInstance(ret);
+
+            var key = new ByteArrayWrapper(keyable.keyBytes());
+            var cached = objectCache.get(key);
+            if (cached == null) {
+                var generation = objectCache.generation(key);
+                cached = codecRegistry.decode(model, rawValue(model, key.getData(), db.get(handle, readOpts, key.getData())));
+                if (cached == null) return null;
+                objectCache.putIfGeneration(key, cached, generation);
+            }
+            return model.cast(cached);
         } catch (Exception e) {
             logger.error("Failed to get from db '{}'", name, e);
             hintOnTooManyOpenFiles(e);
@@ -167,13 +574,14 @@ public class RocksDbSource extends AbstractDbSource {
     }
 
 
+    @SuppressWarnings("unchecked")
     public List<Persistable> getAll(Class<?> model) {
         var handle = clazz2HandleTable.get(model);
-        try (var iterator = db.newIterator(handle, readOpts)) {
+        try (var iterator = db.newIterator(handle, totalOrderReadOpts)) {
             var result = new ArrayList<Persistable>();
-            var constructor = clazz2ConstructorTable.get(model);
+            var decoder = decoder((Class<? extends Persistable>) model, encryptedModels.get(model));
             for (iterator.seekToFirst(); iterator.isValid(); iterator.next()) {
-                result.add((Persistable) constructor.newInstance(iterator.value()));
+                result.add(decoder.apply(iterator));
             }
 
             return result;
@@ -184,22 +592,104 @@ public class RocksDbSource extends AbstractDbSource {
         }
     }
 
+    @Override
+    public <T extends Persistable> Stream<T> scan(Class<T> model, byte[] from, byte[] to) {
+        return cursor(model, from, to).stream();
+    }
+
+    @Override
+    public <T extends Persistable> Stream<T> scanPrefix(Class<T> model, byte[] prefix) {
+        return cursor(model, prefix, ByteUtil.prefixUpperBound(prefix), isPrefixSeekable(model, prefix)).stream();
+    }
+
+    /**
+     * the chain id is the fixed length prefix of the key, when the column family was opened with
+     * {@link org.ivy.settlement.infrastructure.datasource.ColumnFamilySettings#CHAIN_PREFIX_LENGTH}
+     * the prefix bloom lets the seek skip the sst files and blocks of other chains.
+     */
+    @Override
+    public <T extends Persistable> Stream<T> scanChain(Class<T> model, int chain, long fromHeight, long toHeight) {
+        var from = chainKey(chain, fromHeight);
+        var to = ByteUtil.prefixUpperBound(chainKey(chain, toHeight));
+        return cursor(model, from, to, isPrefixSeekable(model, ByteUtil.intToBytes(chain))).stream();
+    }
+
+    boolean isPrefixSeekable(Class<? extends Persistable> model, byte[] prefix) {
+        var prefixLength = settings.getColumnFamilySettings(model).getPrefixLength();
+        return prefixLength > 0 && prefixLength == prefix.length;
+    }
+
+    /**
+     * open a cursor over [from, to) of the model, null bound means unbounded.
+     * bulk reads bypass the block cache so a scan does not evict the hot point lookup blocks.
+     */
+    public <T extends Persistable> RocksDbCursor<T> cursor(Class<T> model, byte[] from, byte[] to) {
+        return cursor(model, from, to, false);
+    }
+
+    /**
+     * @param prefixSeek all keys in [from, to) share the extracted prefix of from,
+     *                   so the prefix bloom filters may be consulted instead of a total order seek
+     */
+    private <T extends Persistable> RocksDbCursor<T> cursor(Class<T> model, byte[] from, byte[] to, boolean prefixSeek) {
+        return cursor(model, from, to, prefixSeek, null);
+    }
+
+    /**
+     * @param snapshot the snapshot to read from, null for the latest state
+     */
+    <T extends Persistable> RocksDbCursor<T> cursor(Class<T> model, byte[] from, byte[] to, boolean prefixSeek, Snapshot snapshot) {
+        return cursor(clazz2HandleTable.get(model), encryptedModels.get(model), model, from, to, prefixSeek, snapshot);
+    }
+
+    private <T extends Persistable> RocksDbCursor<T> cursor(ColumnFamilyHandle handle, byte[] aad, Class<T> model, byte[] from, byte[] to, boolean prefixSeek, Snapshot snapshot) {
+        var upperBound = to == null ? null : new Slice(to);
+        var scanOpts = new ReadOptions()
+                .setVerifyChecksums(false)
+                .setFillCache(false)
+                .setReadaheadSize(SCAN_READAHEAD_SIZE)
+                .setTotalOrderSeek(!prefixSeek)
+                .setPrefixSameAsStart(prefixSeek);
+        if (upperBound != null) {
+            scanOpts.setIterateUpperBound(upperBound);
+        }
+        if (snapshot != null) {
+            scanOpts.setSnapshot(snapshot);
+        }
+        try {
+            return new RocksDbCursor<>(db.newIterator(handle, scanOpts), scanOpts, upperBound, decoder(model, aad), from);
+        } catch (Exception e) {
+            close(scanOpts, upperBound);
+            logger.error("Failed to scan db '{}'", name, e);
+            hintOnTooManyOpenFiles(e);
+            throw new RuntimeException(e);
+        }
+    }
+
     @Override
     public void put(Keyable keyable, Persistable persistable) {
+        var durability = durabilityOf(persistable.getClass());
+        if (isGroupCommit(durability)) {
+            awaitGroupCommit(groupCommitWriter.submit(List.of(Pair.of(keyable, persistable))));
+            return;
+        }
+
         //WriteOptions writeOptions = null;
-        try (var writeOptions = new WriteOptions()) {
+        try (var writeOptions = newWriteOptions(durability)) {
 
 
-            //writeOptions = new WriteOptions();
-            writeOptions.setSync(true);
             var handle = clazz2HandleTable.get(persistable.getClass());
-            //var encryptedKey = cipherKey.encrypt(keyable.keyBytes());
-            if (persistable.valueBytes() != null) {
-                //var encryptedValue = cipherKey.encrypt(persistable.valueBytes());
-                db.put(handle, writeOptions, keyable.keyBytes(), persistable.valueBytes());
+            var aad = encryptedModels.get(persistable.getClass());
+            var key = keyable.keyBytes();
+            if (persistable.valueBytes() == null) {
+                db.delete(handle, writeOptions, key);
+            } else if (aad != null) {
+                // sealed in the pooled buffers of the thread, no value sized array per put
+                db.put(handle, writeOptions, valueCipher.directKey(key), valueCipher.seal(aad, key, persistable.valueBytes()));
             } else {
-                db.delete(handle, writeOptions, keyable.keyBytes());
+                db.put(handle, writeOptions, key, storedValue(persistable.getClass(), null, key, persistable.valueBytes()));
             }
+            invalidateObjectCache(persistable.getClass(), keyable);
             if (logger.isTraceEnabled())
                 logger.trace("<~ RocksDbSource.put(): " + name + ", key: " + toHexString(keyable.keyBytes()) + ", " + (persistable.valueBytes() == null ? "null" : persistable.valueBytes().length));
         } catch (RocksDBException e) {
@@ -211,25 +701,22 @@ public class RocksDbSource extends AbstractDbSource {
 
 
     public void updateBatch(List<Pair<Keyable, Persistable>> saveBatch) {
+        var durability = durabilityOf(saveBatch);
+        if (isGroupCommit(durability)) {
+            awaitGroupCommit(groupCommitWriter.submit(saveBatch));
+            return;
+        }
 
         //if (logger.isTraceEnabled()) logger.trace("~> RocksDbSource.updateBatch(): " + name + ", " + saveBatch.size());
         try (var batch = writeBatchFactory.getInstance();
-             var writeOptions = new WriteOptions()) {
+             var writeOptions = newWriteOptions(durability)) {
 
 
-            //For now we always use synchronous writes. This makes sure that once the operation returns
-            //success, the data is persisted even if the machine crashes.
-            writeOptions.setSync(true);
-            for (var pair : saveBatch) {
-                var handle = clazz2HandleTable.get(pair.getRight().getClass());
-                if (pair.getRight().valueBytes() == null) {
-                    batch.delete(handle, pair.getLeft().keyBytes());
-                } else {
-                    batch.put(handle, pair.getLeft().keyBytes(), pair.getRight().valueBytes());
-                }
-            }
+            // the batch is written with the strongest durability of the column families it touches
+            fillBatch(batch, saveBatch);
             //long start = System.currentTimeMillis();
             db.write(writeOptions, batch);
+            invalidateObjectCache(saveBatch);
             //long end = System.currentTimeMillis();
             //logger.debug("write db cost:{}ms", (end - start));
 
@@ -243,16 +730,326 @@ public class RocksDbSource extends AbstractDbSource {
     }
 
 
+    /**
+     * asynchronous variant of {@link #put}, the future completes once the data is written with the
+     * durability of its column family. with group commit concurrent callers share one fsync.
+     */
+    public CompletableFuture<Void> putAsync(Keyable keyable, Persistable persistable) {
+        return updateBatchAsync(List.of(Pair.of(keyable, persistable)));
+    }
+
+    /**
+     * asynchronous variant of {@link #updateBatch}, the future completes once the data is synced to disk.
+     * with group commit enabled concurrent callers share one fsync.
+     */
+    public CompletableFuture<Void> updateBatchAsync(List<Pair<Keyable, Persistable>> saveBatch) {
+        if (isGroupCommit(durabilityOf(saveBatch))) {
+            return groupCommitWriter.submit(saveBatch);
+        }
+
+        try {
+            updateBatch(saveBatch);
+            return CompletableFuture.completedFuture(null);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    void fillBatch(WriteBatch batch, List<Pair<Keyable, Persistable>> saveBatch) throws RocksDBException {
+        for (var pair : saveBatch) {
+            var model = pair.getRight().getClass();
+            putStored(batch, clazz2HandleTable.get(model), encryptedModels.get(model), pair);
+        }
+    }
+
+    /**
+     * put or delete the stored form of the pair, sealed values are copied into the batch from the
+     * pooled buffers of the thread without a value sized array
+     */
+    private void putStored(WriteBatch batch, ColumnFamilyHandle handle, byte[] aad, Pair<Keyable, Persistable> pair) throws RocksDBException {
+        var key = pair.getLeft().keyBytes();
+        var value = pair.getRight().valueBytes();
+        if (value == null) {
+            batch.delete(handle, key);
+        } else if (aad != null) {
+            batch.put(handle, valueCipher.directKey(key), valueCipher.seal(aad, key, value));
+        } else {
+            batch.put(handle, key, storedValue(pair.getRight().getClass(), null, key, value));
+        }
+    }
+
+    /**
+     * written keys are dropped from the object cache rather than replaced, so racing writers
+     * can not leave an older object behind and the next read loads what is on disk.
+     */
+    void invalidateObjectCache(List<Pair<Keyable, Persistable>> saveBatch) {
+        if (objectCaches.isEmpty()) return;
+        for (var pair : saveBatch) {
+            invalidateObjectCache(pair.getRight().getClass(), pair.getLeft());
+        }
+    }
+
+    /**
+     * the numeric operators combine raw 8 bytes values, put and get of any other model would
+     * disagree with merge on the format of the stored value
+     */
+    private void checkMergeOperator(Class<? extends Persistable> model, String cfName) {
+        var valueFormat = switch (settings.getColumnFamilySettings(model).getMergeOperator()) {
+            case UINT64_ADD -> UInt64Counter.class;
+            case MAX -> UInt64Max.class;
+            default -> null;
+        };
+        if (valueFormat != null && !valueFormat.isAssignableFrom(model)) {
+            throw new IllegalArgumentException("column family " + cfName + " with merge operator "
+                    + settings.getColumnFamilySettings(model).getMergeOperator() + " must store a " + valueFormat.getSimpleName() + ", not " + model.getSimpleName());
+        }
+    }
+
+    private void registerEncrypted(Class<? extends Persistable> model, String cfName) {
+        if (settings.getColumnFamilySettings(model).getMergeOperator() != ColumnFamilySettings.MergeOperator.NONE) {
+            // rocksdb would combine the operands with the sealed value
+            throw new IllegalArgumentException("column family " + cfName + " can not be encrypted and have a merge operator");
+        }
+        if (valueCipher == null) {
+            valueCipher = new ValueCipher(settings.getEncryptionKey());
+        }
+        encryptedModels.put(model, ValueCipher.associatedData(cfName));
+    }
+
+    /**
+     * the chain column families of an encrypted model are sealed with their own name, a value
+     * can not be moved between chains
+     */
+    private void registerEncryptedChain(Pair<Class<? extends Persistable>, Integer> chainKey, String cfName) {
+        if (encryptedModels.containsKey(chainKey.getLeft())) {
+            encryptedChains.put(chainKey, ValueCipher.associatedData(cfName));
+        }
+    }
+
+    /**
+     * the bytes written for a value, the list header of RLP_LIST_APPEND values is left out
+     * and the values of encrypted column families are sealed
+     */
+    byte[] storedValue(Class<? extends Persistable> model, byte[] key, byte[] value) {
+        return storedValue(model, encryptedModels.get(model), key, value);
+    }
+
+    private byte[] storedValue(Class<? extends Persistable> model, byte[] aad, byte[] key, byte[] value) {
+        if (value != null && listAppendModels.contains(model)) {
+            value = MergeOperands.stripListHeader(value);
+        }
+        return aad == null ? value : valueCipher.encrypt(aad, key, value);
+    }
+
+    /**
+     * reverse of {@link #storedValue}, raw reads return the value as it was put under key
+     */
+    byte[] rawValue(Class<?> model, byte[] key, byte[] stored) {
+        return rawValue(model, encryptedModels.get(model), key, stored);
+    }
+
+    private byte[] rawValue(Class<?> model, byte[] aad, byte[] key, byte[] stored) {
+        if (listAppendModels.contains(model)) {
+            return MergeOperands.wrapListHeader(stored);
+        }
+        return aad == null ? stored : valueCipher.decrypt(aad, key, stored);
+    }
+
+    /**
+     * whether {@link #storedValue} writes other bytes than the value
+     */
+    boolean transformsValues(Class<?> model) {
+        return listAppendModels.contains(model) || encryptedModels.containsKey(model);
+    }
+
+    /**
+     * decoder of the entry an iterator is positioned on, the key is only fetched when the value is sealed
+     */
+    private <T extends Persistable> Function<RocksIterator, T> decoder(Class<T> model, byte[] aad) {
+        var decoder = codecRegistry.decoder(model);
+        if (aad != null) {
+            return iterator -> decoder.apply(valueCipher.decrypt(aad, iterator.key(), iterator.value()));
+        }
+        if (listAppendModels.contains(model)) {
+            return iterator -> decoder.apply(MergeOperands.wrapListHeader(iterator.value()));
+        }
+        return iterator -> decoder.apply(iterator.value());
+    }
+
+    /**
+     * the direct buffer api moves the stored bytes as they are, the stored form of RLP_LIST_APPEND
+     * values lacks the list header which put and the byte[] reads handle
+     */
+    private void checkByteBufferAccess(Class<?> model) {
+        if (listAppendModels.contains(model)) {
+            throw new UnsupportedOperationException(model.getSimpleName() + " has merge operator RLP_LIST_APPEND, use put and getRaw");
+        }
+    }
+
+    /**
+     * blind read-modify-write of a column family configured with a ColumnFamilySettings.MergeOperator,
+     * the operand is encoded by {@link MergeOperands} for that operator. rocksdb combines the operands
+     * with the stored value lazily on read and compaction, no previous read is needed.
+     * <pre>
+     * // SettledEventCount extends UInt64Counter, HighestSyncedNumber extends UInt64Max
+     * db.merge(SettledEventCount.class, key, MergeOperands.uint64Add(1));
+     * db.merge(HighestSyncedNumber.class, key, MergeOperands.max(number));
+     * db.merge(FastPathBlocks.class, key, MergeOperands.rlpAppend(block.getEncoded()));
+     * </pre>
+     */
+    public void merge(Class<? extends Persistable> model, Keyable keyable, byte[] operand) {
+        try (var writeOptions = newWriteOptions(durabilityOf(model))) {
+            db.merge(clazz2HandleTable.get(model), writeOptions, keyable.keyBytes(), operand);
+            invalidateObjectCache(model, keyable);
+        } catch (RocksDBException e) {
+            logger.error("Failed to merge into db '{}'", name, e);
+            hintOnTooManyOpenFiles(e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    ColumnFamilySettings.Durability durabilityOf(Class<? extends Persistable> model) {
+        return settings.getColumnFamilySettings(model).getDurability();
+    }
+
+    ColumnFamilySettings.Durability durabilityOf(List<Pair<Keyable, Persistable>> saveBatch) {
+        var strongest = ColumnFamilySettings.Durability.NO_WAL;
+        for (var pair : saveBatch) {
+            var durability = durabilityOf(pair.getRight().getClass());
+            if (durability.ordinal() < strongest.ordinal()) strongest = durability;
+        }
+        return strongest;
+    }
+
+    private boolean isGroupCommit(ColumnFamilySettings.Durability durability) {
+        return groupCommitWriter != null
+                && (durability == ColumnFamilySettings.Durability.GROUP_SYNC
+                || durability == ColumnFamilySettings.Durability.SYNC && settings.isGroupCommit());
+    }
+
+    private static WriteOptions newWriteOptions(ColumnFamilySettings.Durability durability) {
+        var writeOptions = new WriteOptions();
+        switch (durability) {
+            case SYNC, GROUP_SYNC -> writeOptions.setSync(true);
+            // synced in background by the WalFlushWorker
+            case ASYNC -> writeOptions.setSync(false);
+            case NO_WAL -> writeOptions.setSync(false).setDisableWAL(true);
+        }
+        return writeOptions;
+    }
+
+    private void invalidateObjectCache(Class<? extends Persistable> model, Keyable keyable) {
+        var objectCache = objectCaches.get(model);
+        if (objectCache != null) {
+            objectCache.invalidate(new ByteArrayWrapper(keyable.keyBytes()));
+        }
+    }
+
+    private void awaitGroupCommit(CompletableFuture<Void> future) {
+        try {
+            future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
     public List<byte[]> batchGetRaw(Class<?> model, List<byte[]> keys) {
-        var handle = clazz2HandleTable.get(model);
         try {
+            // multiGetAsList wants one handle per key, nCopies does not materialize them
+            var handles = Collections.nCopies(keys.size(), clazz2HandleTable.get(model));
+            var values = db.multiGetAsList(readOpts, handles, keys);
+            if (transformsValues(model)) {
+                for (var i = 0; i < values.size(); i++) {
+                    values.set(i, rawValue(model, keys.get(i), values.get(i)));
+                }
+            }
+            return values;
+        } catch (RocksDBException e) {
+            logger.error("Failed to multiGet db [{}], error! {} ", name, e);
+            hintOnTooManyOpenFiles(e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * read the value of key into valueOut without intermediate byte[], both buffers must be direct.
+     * the key is read from its position to its limit, the value is written from the position of valueOut
+     * and its limit is set to the end of the value. a value larger than valueOut.remaining() is truncated,
+     * compare the result with the remaining space and retry with a larger buffer. values of encrypted
+     * column families are opened through a pooled buffer of the thread and not written at all when they do not fit.
+     *
+     * @return length of the whole value, {@link RocksDB#NOT_FOUND} when the key does not exist
+     */
+    public int get(Class<?> model, ByteBuffer key, ByteBuffer valueOut) {
+        checkByteBufferAccess(model);
+        try {
+            var aad = encryptedModels.get(model);
+            if (aad != null) {
+                return getEncrypted(model, aad, key, valueOut);
+            }
+            return db.get(clazz2HandleTable.get(model), readOpts, key, valueOut);
+        } catch (RocksDBException e) {
+            logger.error("Failed to get from db '{}'", name, e);
+            hintOnTooManyOpenFiles(e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    private int getEncrypted(Class<?> model, byte[] aad, ByteBuffer key, ByteBuffer valueOut) throws RocksDBException {
+        var handle = clazz2HandleTable.get(model);
+        var keyPosition = key.position();
+        var sealed = valueCipher.scratch(valueOut.remaining() + ValueCipher.OVERHEAD);
+        var length = db.get(handle, readOpts, key, sealed);
+        if (length == RocksDB.NOT_FOUND) return length;
+        if (length > sealed.capacity()) {
+            sealed = valueCipher.scratch(length);
+            db.get(handle, readOpts, key.position(keyPosition), sealed);
+        }
+
+        var valuePosition = valueOut.position();
+        var plainLength = valueCipher.decrypt(aad, key.position(keyPosition), sealed, valueOut);
+        if (plainLength <= valueOut.limit() - valuePosition) {
+            valueOut.limit(valuePosition + plainLength).position(valuePosition);
+        }
+        return plainLength;
+    }
 
-            var handles = new ArrayList<ColumnFamilyHandle>(keys.size());
-            //var keys = new ArrayList<byte[]>(keys.size());
-            keys.forEach(key -> handles.add(handle));
-            //keys.forEach(key -> keys.add(key));
+    /**
+     * synchronous put of direct buffers, the bytes from position to limit of key and value are written
+     * and both positions are advanced to their limits. it does not pass the group commit writer.
+     */
+    public void put(Class<? extends Persistable> model, ByteBuffer key, ByteBuffer value) {
+        checkByteBufferAccess(model);
+        var objectCache = objectCaches.get(model);
+        // the cache is keyed by byte[], only copy the key when there is a cache to invalidate
+        var keyBytes = objectCache == null ? null : toBytes(key.duplicate());
+        try (var writeOptions = newWriteOptions(durabilityOf(model))) {
+            var aad = encryptedModels.get(model);
+            db.put(clazz2HandleTable.get(model), writeOptions, key, aad == null ? value : valueCipher.encrypt(aad, key, value));
+        } catch (RocksDBException e) {
+            logger.error("Failed to put into db '{}'", name, e);
+            hintOnTooManyOpenFiles(e);
+            throw new RuntimeException(e);
+        }
+        if (objectCache != null) {
+            objectCache.invalidate(new ByteArrayWrapper(keyBytes));
+        }
+    }
 
-            return db.multiGetAsList(readOpts, handles, keys);
+    /**
+     * multiGet into caller provided direct buffers, e.g. pooled and reused across calls.
+     * keys and valuesOut are matched by index and follow the buffer rules of {@link #get(Class, ByteBuffer, ByteBuffer)},
+     * the status of every key tells whether it was found and the size its value requires.
+     */
+    public List<ByteBufferGetStatus> multiGet(Class<?> model, List<ByteBuffer> keys, List<ByteBuffer> valuesOut) {
+        checkByteBufferAccess(model);
+        if (encryptedModels.containsKey(model)) {
+            throw new UnsupportedOperationException(model.getSimpleName() + " is encrypted, use get or batchGetRaw");
+        }
+        try {
+            // a single handle is applied to every key
+            return db.multiGetByteBuffers(readOpts, List.of(clazz2HandleTable.get(model)), keys, valuesOut);
         } catch (RocksDBException e) {
             logger.error("Failed to multiGet db [{}], error! {} ", name, e);
             hintOnTooManyOpenFiles(e);
@@ -260,14 +1057,25 @@ public class RocksDbSource extends AbstractDbSource {
         }
     }
 
+    private static byte[] toBytes(ByteBuffer buffer) {
+        var bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
     public void delRange(Class<?> model, byte[] start, byte[] end) {
-        try (var writeOptions = new WriteOptions()) {
-            //For now we always use synchronous writes. This makes sure that once the operation returns
-            //success, the data is persisted even if the machine crashes.
-            writeOptions.setSync(true);
+        try (var writeOptions = newWriteOptions(durabilityOf(model.asSubclass(Persistable.class)))) {
             var handle = clazz2HandleTable.get(model);
 
             db.deleteRange(handle, writeOptions, start, end);
+            var objectCache = objectCaches.get(model);
+            if (objectCache != null) {
+                objectCache.invalidateIf(key -> {
+                    var bytes = key.getData();
+                    return FastByteComparisons.compareTo(bytes, 0, bytes.length, start, 0, start.length) >= 0
+                            && FastByteComparisons.compareTo(bytes, 0, bytes.length, end, 0, end.length) < 0;
+                });
+            }
         } catch (RocksDBException e) {
             logger.error("Error in batch update on db '{}'", name, e);
             //hintOnTooManyOpenFiles(e);
@@ -275,8 +1083,256 @@ public class RocksDbSource extends AbstractDbSource {
         }
     }
 
+    /**
+     * create the column family holding the values of model for one chain, e.g. on AddChainEvent.
+     * it uses the options of the model's column family and is reopened with the db, see
+     * {@link #setChainOptions} to tune it apart from the other chains. no-op when it exists already.
+     */
+    public synchronized void createChainColumnFamily(Class<? extends Persistable> model, int chain) {
+        var chainKey = Pair.<Class<? extends Persistable>, Integer>of(model, chain);
+        if (chainHandles.containsKey(chainKey)) return;
+        var modelName = clazz2NameTable.get(model);
+        if (modelName == null) {
+            throw new IllegalArgumentException(model.getName() + " has no column family in db '" + name + "'");
+        }
+
+        try {
+            var cfName = modelName + CHAIN_CF_SEPARATOR + chain;
+            var handle = db.createColumnFamily(new ColumnFamilyDescriptor(cfName.getBytes(), clazz2OptionsTable.get(model)));
+            columnFamilyHandles.add(handle);
+            registerEncryptedChain(chainKey, cfName);
+            chainHandles.put(chainKey, handle);
+            logger.info("created column family {} in db '{}'", cfName, name);
+        } catch (RocksDBException e) {
+            logger.error("Failed to create column family of chain {} in db '{}'", chain, name, e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * drop the column family of the chain with all its data, e.g. on RemoveChainEvent. the files are
+     * released without a deleteRange or compaction. the native handle is kept open until shutdown,
+     * readers and writers which fetched it before the drop finish on the dropped column family.
+     */
+    public synchronized void dropChainColumnFamily(Class<? extends Persistable> model, int chain) {
+        var chainKey = Pair.<Class<? extends Persistable>, Integer>of(model, chain);
+        var handle = chainHandles.remove(chainKey);
+        if (handle == null) return;
+        encryptedChains.remove(chainKey);
+        try {
+            db.dropColumnFamily(handle);
+            logger.info("dropped column family {} of db '{}'", new String(handle.getName()), name);
+        } catch (RocksDBException e) {
+            logger.error("Failed to drop column family of chain {} in db '{}'", chain, name, e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    public Set<Integer> getChains(Class<? extends Persistable> model) {
+        var chains = new TreeSet<Integer>();
+        for (var chainKey : chainHandles.keySet()) {
+            if (chainKey.getLeft() == model) chains.add(chainKey.getRight());
+        }
+        return chains;
+    }
+
+    public boolean hasChainColumnFamily(Class<? extends Persistable> model, int chain) {
+        return chainHandles.containsKey(Pair.<Class<? extends Persistable>, Integer>of(model, chain));
+    }
+
+    private ColumnFamilyHandle chainHandle(Class<? extends Persistable> model, int chain) {
+        var handle = chainHandles.get(Pair.<Class<? extends Persistable>, Integer>of(model, chain));
+        if (handle == null) {
+            throw new IllegalArgumentException("db '" + name + "' has no " + model.getSimpleName() + " column family for chain " + chain);
+        }
+        return handle;
+    }
+
+    public byte[] getRawFromChain(Class<? extends Persistable> model, int chain, Keyable keyable) {
+        try {
+            var key = keyable.keyBytes();
+            return rawValue(model, encryptedChains.get(Pair.of(model, chain)), key, db.get(chainHandle(model, chain), readOpts, key));
+        } catch (RocksDBException e) {
+            logger.error("Failed to get from db '{}'", name, e);
+            hintOnTooManyOpenFiles(e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * decoded on every call, the object cache of the model only holds the keys of its own column
+     * family. keys are not unique across chains, and a cache per chain would have to be created and
+     * dropped with the column family, so updateChainBatch has nothing to invalidate.
+     */
+    public <T extends Persistable> T getFromChain(Class<T> model, int chain, Keyable keyable) {
+        return codecRegistry.decode(model, getRawFromChain(model, chain, keyable));
+    }
+
+    /**
+     * atomic write into the column families of one chain, the column family of each pair is picked by its Persistable class
+     */
+    public void updateChainBatch(int chain, List<Pair<Keyable, Persistable>> saveBatch) {
+        try (var batch = writeBatchFactory.getInstance();
+             var writeOptions = newWriteOptions(durabilityOf(saveBatch))) {
+            for (var pair : saveBatch) {
+                var model = pair.getRight().getClass();
+                putStored(batch, chainHandle(model, chain), encryptedChains.get(Pair.of(model, chain)), pair);
+            }
+            db.write(writeOptions, batch);
+        } catch (RocksDBException e) {
+            logger.error("Error in batch update on db '{}'", name, e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    public <T extends Persistable> Stream<T> scanChainColumnFamily(Class<T> model, int chain, byte[] from, byte[] to) {
+        return cursor(chainHandle(model, chain), encryptedChains.get(Pair.of(model, chain)), model, from, to, false, null).stream();
+    }
+
+    /**
+     * change the mutable options of one chain's column family at runtime, e.g. write buffer or compaction triggers
+     */
+    public void setChainOptions(Class<? extends Persistable> model, int chain, MutableColumnFamilyOptions options) {
+        try {
+            db.setOptions(chainHandle(model, chain), options);
+        } catch (RocksDBException e) {
+            logger.error("Failed to set options of chain {} in db '{}'", chain, name, e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * run fn in an optimistic transaction and commit it, requires DbSettings.optimisticTransactions.
+     * nothing is locked while fn runs, on commit every key fn read or wrote is validated and a
+     * conflict with a concurrent writer rolls the transaction back and runs fn again on a new
+     * snapshot, up to DbSettings.transactionMaxRetries times. fn may be executed more than once,
+     * it must not have side effects outside of the transaction. the commit is written with the
+     * strictest durability of the column families fn wrote, GROUP_SYNC commits sync on their own.
+     * <pre>
+     * db.transaction(tx -> {
+     *     var state = tx.get(LatestUploadBlobState.class, key);
+     *     state.reset(number, status);
+     *     // the transaction encodes the changed state again
+     *     tx.put(key, state);
+     *     return state;
+     * });
+     * </pre>
+     */
+    public <R> R transaction(TransactionFunction<R> fn) {
+        if (!(db instanceof OptimisticTransactionDB transactionDB)) {
+            throw new IllegalStateException("db '" + name + "' was not opened with DbSettings.optimisticTransactions");
+        }
+
+        for (var attempt = 0; ; attempt++) {
+            try (var writeOptions = new WriteOptions();
+                 var transactionOptions = new OptimisticTransactionOptions().setSetSnapshot(true);
+                 var transaction = transactionDB.beginTransaction(writeOptions, transactionOptions);
+                 var readOptions = new ReadOptions().setSnapshot(transaction.getSnapshot())) {
+                var tx = new RocksDbTransaction(this, transaction, readOptions);
+                try {
+                    var result = fn.apply(tx);
+                    // the column families written are known only now, the strictest durability among them applies to the commit
+                    try (var commitOptions = newWriteOptions(durabilityOf(tx.writes))) {
+                        transaction.setWriteOptions(commitOptions);
+                    }
+                    transaction.commit();
+                    invalidateObjectCache(tx.writes);
+                    return result;
+                } catch (RocksDBException e) {
+                    transaction.rollback();
+                    if (!isConflict(e) || attempt >= settings.getTransactionMaxRetries()) throw e;
+                    logger.debug("transaction conflict on db '{}', retry {}", name, attempt + 1);
+                } catch (RuntimeException e) {
+                    transaction.rollback();
+                    throw e;
+                }
+            } catch (RocksDBException e) {
+                logger.error("Failed to commit transaction on db '{}'", name, e);
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    private static boolean isConflict(RocksDBException e) {
+        return e.getStatus() != null
+                && (e.getStatus().getCode() == Status.Code.Busy || e.getStatus().getCode() == Status.Code.TryAgain);
+    }
+
+    @FunctionalInterface
+    public interface TransactionFunction<R> {
+
+        R apply(RocksDbTransaction tx) throws RocksDBException;
+    }
+
+    /**
+     * run one retention round now instead of waiting for DbSettings.pruneInterval,
+     * removes the heights below the retained window of every column family with a retention.
+     *
+     * a no-op on a secondary or when no column family has a retention.
+     *
+     * @return number of heights removed
+     */
+    public long prune() {
+        return retentionPruner == null ? 0 : retentionPruner.pruneAll();
+    }
+
+    /**
+     * bulk load records of one model, e.g. a historical backfill. instead of passing the memtable,
+     * WAL and compactions like {@link #updateBatch}, the records are sorted in chunks of
+     * {@link #BULK_LOAD_CHUNK_SIZE}, written to external sst files and ingested into the column family.
+     * for duplicated keys inside a chunk the last record wins, records with null value become deletions.
+     *
+     * @return number of records ingested
+     */
+    public long bulkLoad(Class<? extends Persistable> model, Stream<Pair<Keyable, Persistable>> records) {
+        var workDir = Paths.get(path + "_bulk_load_" + System.nanoTime());
+        var loader = new SstBulkLoader(this, clazz2HandleTable.get(model), clazz2OptionsTable.get(model), workDir, BULK_LOAD_CHUNK_SIZE);
+        try {
+            return loader.load(records.iterator());
+        } catch (Exception e) {
+            logger.error("Failed to bulk load into db '{}'", name, e);
+            hintOnTooManyOpenFiles(e);
+            throw new RuntimeException(e);
+        } finally {
+            var objectCache = objectCaches.get(model);
+            if (objectCache != null) {
+                objectCache.invalidateIf(key -> true);
+            }
+            loader.cleanUp();
+        }
+    }
+
+    /**
+     * create an online checkpoint of the whole db in checkpointDir, which must not exist yet.
+     * sst files are hard linked when checkpointDir is on the same file system as the db, so
+     * this costs almost no io or space and writers are not blocked. the checkpoint is a complete
+     * db directory, see {@link #openFromCheckpoint} to bootstrap a replica from it.
+     */
+    public void createCheckpoint(String checkpointDir) {
+        try (var checkpoint = Checkpoint.create(db)) {
+            checkpoint.createCheckpoint(checkpointDir);
+            logger.info("Created checkpoint of db '{}' in {}", name, checkpointDir);
+        } catch (RocksDBException e) {
+            logger.error("Failed to create checkpoint of db '{}' in {}", name, checkpointDir, e);
+            hintOnTooManyOpenFiles(e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * open a consistent read view over all column families, reads through the session see
+     * the db as it was when it was opened, regardless of concurrent writes. the snapshot pins
+     * old versions of the data, so close the session as soon as the reads are done:
+     * <pre>
+     * try (var s = db.openSnapshot()) { s.get(...); s.scan(...); }
+     * </pre>
+     */
+    public RocksDbSnapshot openSnapshot() {
+        return new RocksDbSnapshot(this);
+    }
+
     public RocksIterator newIterator(Class<?> model) {
-        return db.newIterator(this.clazz2HandleTable.get(model));
+        return db.newIterator(this.clazz2HandleTable.get(model), totalOrderReadOpts);
     }
 
 
@@ -291,10 +1347,57 @@ public class RocksDbSource extends AbstractDbSource {
     }
 
     public void shutdown() {
+        stopWorkers();
+        if (!isSecondary()) {
+            flushNoWalColumnFamilies();
+        }
         for (final var columnFamilyHandle : columnFamilyHandles) {
             close(columnFamilyHandle);
         }
-        close(db, readOpts, dbOptions);
+        close(db, readOpts, totalOrderReadOpts, dbOptions, columnFamilyOptionsFactory, blockCache, statistics, rateLimiter);
+    }
+
+    private void stopWorkers() {
+        synchronized (this) {
+            if (backpressureMonitor != null) {
+                backpressureMonitor.close();
+            }
+        }
+        if (secondaryCatchUpWorker != null) {
+            secondaryCatchUpWorker.close();
+        }
+        if (retentionService != null) {
+            retentionService.close();
+        } else if (retentionPruner != null) {
+            retentionPruner.close();
+        }
+        if (metricsCollector != null) {
+            metricsCollector.close();
+        }
+        if (groupCommitWriter != null) {
+            groupCommitWriter.close();
+        }
+        if (walFlushWorker != null) {
+            walFlushWorker.close();
+        }
+    }
+
+    private void flushNoWalColumnFamilies() {
+        var handles = new ArrayList<ColumnFamilyHandle>();
+        for (var entry : clazz2HandleTable.entrySet()) {
+            if (durabilityOf(entry.getKey()) == ColumnFamilySettings.Durability.NO_WAL) handles.add(entry.getValue());
+        }
+        for (var entry : chainHandles.entrySet()) {
+            if (durabilityOf(entry.getKey().getLeft()) == ColumnFamilySettings.Durability.NO_WAL) handles.add(entry.getValue());
+        }
+        if (handles.isEmpty()) return;
+
+        // without WAL the memtables are the only copy of the latest writes
+        try (var flushOptions = new FlushOptions().setWaitForFlush(true)) {
+            db.flush(flushOptions, handles);
+        } catch (RocksDBException e) {
+            logger.error("Failed to flush the column families without WAL of db '{}'", name, e);
+        }
     }
 
     public static void close(AutoCloseable... autoCloseables) {
@@ -0,0 +1,69 @@
+package org.ivy.settlement.infrastructure.datasource.rocksdb;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.ivy.settlement.infrastructure.datasource.model.Keyable;
+import org.ivy.settlement.infrastructure.datasource.model.Persistable;
+import org.rocksdb.ReadOptions;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.Transaction;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * description: view of one optimistic transaction handed to the function of
+ * {@link RocksDbSource#transaction}. reads see the snapshot taken when the transaction began
+ * plus its own writes, every key read or written is validated on commit and the transaction
+ * fails with a conflict when another writer changed it meanwhile. writes of any column family
+ * are committed atomically. only valid inside the function, not thread safe.
+ * @author carrot
+ */
+public class RocksDbTransaction {
+
+    final RocksDbSource dbSource;
+
+    final Transaction transaction;
+
+    final ReadOptions readOptions;
+
+    // committed writes invalidate the object cache after the commit succeeded
+    final List<Pair<Keyable, Persistable>> writes = new ArrayList<>();
+
+    RocksDbTransaction(RocksDbSource dbSource, Transaction transaction, ReadOptions readOptions) {
+        this.dbSource = dbSource;
+        this.transaction = transaction;
+        this.readOptions = readOptions;
+    }
+
+    public byte[] getRaw(Class<?> model, Keyable keyable) throws RocksDBException {
+        // getForUpdate registers the key, so a concurrent change of it fails the commit
+        var key = keyable.keyBytes();
+        return dbSource.rawValue(model, key, transaction.getForUpdate(readOptions, dbSource.clazz2HandleTable.get(model), key, true));
+    }
+
+    public <T extends Persistable> T get(Class<T> model, Keyable keyable) throws RocksDBException {
+        return dbSource.codecRegistry.decode(model, getRaw(model, keyable));
+    }
+
+    /**
+     * writes the current state of persistable, a model changed in place since it was read is
+     * encoded again. a persistable without encoding, e.g. new DefaultValueable(null), deletes the key.
+     */
+    public void put(Keyable keyable, Persistable persistable) throws RocksDBException {
+        var handle = dbSource.clazz2HandleTable.get(persistable.getClass());
+        var key = keyable.keyBytes();
+        var value = persistable.getEncoded();
+        if (value == null) {
+            transaction.delete(handle, key);
+        } else {
+            transaction.put(handle, key, dbSource.storedValue(persistable.getClass(), key, value));
+        }
+        writes.add(Pair.of(keyable, persistable));
+    }
+
+    public void updateBatch(List<Pair<Keyable, Persistable>> saveBatch) throws RocksDBException {
+        for (var pair : saveBatch) {
+            put(pair.getLeft(), pair.getRight());
+        }
+    }
+}
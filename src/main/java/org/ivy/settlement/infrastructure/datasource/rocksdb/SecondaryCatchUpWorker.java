@@ -0,0 +1,38 @@
+package org.ivy.settlement.infrastructure.datasource.rocksdb;
+
+import org.ivy.settlement.infrastructure.async.IrisSettlementWorker;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * description: lets a secondary RocksDbSource follow its primary, every interval the secondary
+ * replays the primary's new MANIFEST and WAL entries, reads see the primary's writes with at most
+ * one interval of delay.
+ * @author carrot
+ */
+class SecondaryCatchUpWorker extends IrisSettlementWorker {
+
+    final RocksDbSource dbSource;
+
+    final long intervalMs;
+
+    final CountDownLatch closeLatch = new CountDownLatch(1);
+
+    SecondaryCatchUpWorker(RocksDbSource dbSource, long intervalMs) {
+        super(dbSource.name + "_secondary_catch_up");
+        this.dbSource = dbSource;
+        this.intervalMs = intervalMs;
+    }
+
+    @Override
+    protected void doWork() throws Exception {
+        if (closeLatch.await(intervalMs, TimeUnit.MILLISECONDS)) return;
+        dbSource.tryCatchUpWithPrimary();
+    }
+
+    void close() {
+        closeLatch.countDown();
+        terminateAndFullAwait();
+    }
+}
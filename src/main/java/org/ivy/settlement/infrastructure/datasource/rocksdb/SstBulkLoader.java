@@ -0,0 +1,119 @@
+package org.ivy.settlement.infrastructure.datasource.rocksdb;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.ivy.settlement.infrastructure.datasource.model.Keyable;
+import org.ivy.settlement.infrastructure.datasource.model.Persistable;
+import org.rocksdb.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * description: loads large amounts of records into one column family without going through
+ * memtable, WAL and the compactions of the upper levels. records are buffered into chunks,
+ * each chunk is sorted, written to an external sst file by SstFileWriter and then moved
+ * into the column family by ingestExternalFile.
+ * @author carrot
+ */
+class SstBulkLoader {
+
+    private static final Logger logger = LoggerFactory.getLogger("db");
+
+    private static final Comparator<byte[]> KEY_ORDER = Keyable.BYTES_ORDER;
+
+    final RocksDbSource dbSource;
+
+    final ColumnFamilyHandle handle;
+
+    final ColumnFamilyOptions columnFamilyOptions;
+
+    final Path workDir;
+
+    final long chunkBytes;
+
+    int fileSeq;
+
+    SstBulkLoader(RocksDbSource dbSource, ColumnFamilyHandle handle, ColumnFamilyOptions columnFamilyOptions, Path workDir, long chunkBytes) {
+        this.dbSource = dbSource;
+        this.handle = handle;
+        this.columnFamilyOptions = columnFamilyOptions;
+        this.workDir = workDir;
+        this.chunkBytes = chunkBytes;
+    }
+
+    long load(Iterator<Pair<Keyable, Persistable>> records) throws RocksDBException, IOException {
+        Files.createDirectories(workDir);
+        var total = 0L;
+        var chunk = new ArrayList<Pair<byte[], byte[]>>();
+        var bytes = 0L;
+        while (records.hasNext()) {
+            var record = records.next();
+            var key = record.getLeft().keyBytes();
+            var value = dbSource.storedValue(record.getRight().getClass(), key, record.getRight().valueBytes());
+            chunk.add(Pair.of(key, value));
+            bytes += key.length + (value == null ? 0 : value.length);
+            if (bytes >= chunkBytes) {
+                total += ingest(chunk);
+                chunk.clear();
+                bytes = 0;
+            }
+        }
+        if (!chunk.isEmpty()) {
+            total += ingest(chunk);
+        }
+        return total;
+    }
+
+    private int ingest(List<Pair<byte[], byte[]>> chunk) throws RocksDBException {
+        // stable sort, so for duplicated keys the last record of the chunk wins
+        chunk.sort((p1, p2) -> KEY_ORDER.compare(p1.getLeft(), p2.getLeft()));
+        var file = workDir.resolve(String.format("bulk_%06d.sst", fileSeq++)).toString();
+        var written = 0;
+        try (var envOptions = new EnvOptions();
+             var options = new Options(dbSource.dbOptions, columnFamilyOptions);
+             var writer = new SstFileWriter(envOptions, options)) {
+            writer.open(file);
+            for (var i = 0; i < chunk.size(); i++) {
+                var key = chunk.get(i).getLeft();
+                if (i + 1 < chunk.size() && KEY_ORDER.compare(key, chunk.get(i + 1).getLeft()) == 0) continue;
+                var value = chunk.get(i).getRight();
+                if (value == null) {
+                    writer.delete(key);
+                } else {
+                    writer.put(key, value);
+                }
+                written++;
+            }
+            writer.finish();
+        }
+
+        // move instead of copy, the file is hard linked into the db directory
+        try (var ingestOptions = new IngestExternalFileOptions()
+                .setMoveFiles(true)
+                .setSnapshotConsistency(true)
+                .setAllowGlobalSeqNo(true)
+                .setAllowBlockingFlush(true)) {
+            dbSource.db.ingestExternalFile(handle, List.of(file), ingestOptions);
+        }
+        logger.debug("bulk load ingested {} records into db '{}' from {}", written, dbSource.name, file);
+        return written;
+    }
+
+    void cleanUp() {
+        try (var files = Files.list(workDir)) {
+            for (var file : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(file);
+            }
+            Files.deleteIfExists(workDir);
+        } catch (IOException e) {
+            logger.warn("Failed to clean up bulk load dir {}", workDir, e);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package org.ivy.settlement.infrastructure.datasource.rocksdb;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+
+/**
+ * description: AES-GCM sealing of the values of encrypted column families, stored as
+ * nonce (12 bytes) | ciphertext | tag (16 bytes). the associated data is the length prefixed
+ * name of the column family followed by the row key, a value copied to another key or into
+ * another column family fails to open.
+ *
+ * every thread keeps its own Cipher and nonce, only the key and nonce are set per value instead
+ * of looking up a cipher per call. the nonce starts at a random point per thread and counts up,
+ * the key should be rotated long before 2^32 values were written under it. {@link #seal} and the
+ * ByteBuffer methods work in pooled direct buffers of the thread, so the hot paths allocate no
+ * array per value.
+ * @author carrot
+ */
+class ValueCipher {
+
+    static final int NONCE_LENGTH = 12;
+
+    static final int TAG_LENGTH = 16;
+
+    static final int OVERHEAD = NONCE_LENGTH + TAG_LENGTH;
+
+    static final String TRANSFORMATION = "AES/GCM/NoPadding";
+
+    final SecretKeySpec key;
+
+    final ThreadLocal<Context> contexts = ThreadLocal.withInitial(Context::new);
+
+    ValueCipher(byte[] key) {
+        if (key == null || (key.length != 16 && key.length != 24 && key.length != 32)) {
+            throw new IllegalArgumentException("encryption key must have 16, 24 or 32 bytes");
+        }
+        this.key = new SecretKeySpec(key, "AES");
+    }
+
+    /**
+     * associated data of the values of a column family, the name is length prefixed so the
+     * row key appended to it can not shift into the name
+     */
+    static byte[] associatedData(String columnFamily) {
+        var name = columnFamily.getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(Integer.BYTES + name.length).putInt(name.length).put(name).array();
+    }
+
+    byte[] encrypt(byte[] aad, byte[] rowKey, byte[] plain) {
+        if (plain == null) return null;
+        var context = contexts.get();
+        try {
+            var sealed = new byte[plain.length + OVERHEAD];
+            var cipher = context.init(Cipher.ENCRYPT_MODE, key, context.nextNonce(), aad);
+            cipher.updateAAD(rowKey);
+            System.arraycopy(context.nonce, 0, sealed, 0, NONCE_LENGTH);
+            cipher.doFinal(plain, 0, plain.length, sealed, NONCE_LENGTH);
+            return sealed;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("failed to encrypt value", e);
+        }
+    }
+
+    byte[] decrypt(byte[] aad, byte[] rowKey, byte[] sealed) {
+        if (sealed == null) return null;
+        var context = contexts.get();
+        try {
+            var cipher = context.init(Cipher.DECRYPT_MODE, key, sealed, aad);
+            cipher.updateAAD(rowKey);
+            return cipher.doFinal(sealed, NONCE_LENGTH, sealed.length - NONCE_LENGTH);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("failed to decrypt value, wrong key or corrupted data", e);
+        }
+    }
+
+    /**
+     * seal plain into the pooled buffer of the calling thread, like {@link #encrypt(byte[], ByteBuffer, ByteBuffer)}
+     */
+    ByteBuffer seal(byte[] aad, byte[] rowKey, byte[] plain) {
+        var context = contexts.get();
+        try {
+            var sealed = context.scratch(plain.length + OVERHEAD);
+            var cipher = context.init(Cipher.ENCRYPT_MODE, key, context.nextNonce(), aad);
+            cipher.updateAAD(rowKey);
+            sealed.put(context.nonce);
+            cipher.doFinal(ByteBuffer.wrap(plain), sealed);
+            return sealed.flip();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("failed to encrypt value", e);
+        }
+    }
+
+    /**
+     * seal plain, from its position to its limit, into the pooled buffer of the calling thread.
+     * the returned buffer is flipped for reading and valid until the next call on this thread.
+     * the position of rowKey is left unchanged.
+     */
+    ByteBuffer encrypt(byte[] aad, ByteBuffer rowKey, ByteBuffer plain) {
+        var context = contexts.get();
+        try {
+            var sealed = context.scratch(plain.remaining() + OVERHEAD);
+            var cipher = context.init(Cipher.ENCRYPT_MODE, key, context.nextNonce(), aad);
+            updateAAD(cipher, rowKey);
+            sealed.put(context.nonce);
+            cipher.doFinal(plain, sealed);
+            return sealed.flip();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("failed to encrypt value", e);
+        }
+    }
+
+    /**
+     * open sealed, from its position to its limit, into plainOut from its position.
+     * nothing is written when plainOut is too small, the plain length is returned either way.
+     * the position of rowKey is left unchanged.
+     */
+    int decrypt(byte[] aad, ByteBuffer rowKey, ByteBuffer sealed, ByteBuffer plainOut) {
+        var plainLength = sealed.remaining() - OVERHEAD;
+        if (plainLength > plainOut.remaining()) return plainLength;
+
+        var context = contexts.get();
+        try {
+            sealed.get(context.openNonce);
+            var cipher = context.init(Cipher.DECRYPT_MODE, key, context.openNonce, aad);
+            updateAAD(cipher, rowKey);
+            return cipher.doFinal(sealed, plainOut);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("failed to decrypt value, wrong key or corrupted data", e);
+        }
+    }
+
+    private static void updateAAD(Cipher cipher, ByteBuffer rowKey) {
+        var position = rowKey.position();
+        cipher.updateAAD(rowKey);
+        rowKey.position(position);
+    }
+
+    /**
+     * direct buffer of the calling thread for reading sealed values, cleared and at least capacity large
+     */
+    ByteBuffer scratch(int capacity) {
+        return contexts.get().scratch(capacity);
+    }
+
+    /**
+     * copy of key in a pooled direct buffer of the calling thread, to write a value from {@link #seal}
+     * through the ByteBuffer methods of rocksdb. valid until the next call on this thread.
+     */
+    ByteBuffer directKey(byte[] rowKey) {
+        return contexts.get().directKey(rowKey);
+    }
+
+    static class Context {
+
+        final Cipher cipher;
+
+        final byte[] nonce = new byte[NONCE_LENGTH];
+
+        // nonce of the value being opened from a ByteBuffer
+        final byte[] openNonce = new byte[NONCE_LENGTH];
+
+        ByteBuffer scratch;
+
+        ByteBuffer keyScratch;
+
+        Context() {
+            try {
+                this.cipher = Cipher.getInstance(TRANSFORMATION);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(TRANSFORMATION + " is not available", e);
+            }
+            new SecureRandom().nextBytes(nonce);
+        }
+
+        byte[] nextNonce() {
+            // the last 8 bytes count up big endian
+            for (var i = NONCE_LENGTH - 1; i >= NONCE_LENGTH - Long.BYTES; i--) {
+                if (++nonce[i] != 0) break;
+            }
+            return nonce;
+        }
+
+        Cipher init(int mode, SecretKeySpec key, byte[] nonce, byte[] aad) throws GeneralSecurityException {
+            cipher.init(mode, key, new GCMParameterSpec(TAG_LENGTH * 8, nonce, 0, NONCE_LENGTH));
+            cipher.updateAAD(aad);
+            return cipher;
+        }
+
+        ByteBuffer scratch(int capacity) {
+            if (scratch == null || scratch.capacity() < capacity) {
+                scratch = ByteBuffer.allocateDirect(Math.max(capacity, scratch == null ? 4096 : scratch.capacity() * 2));
+            }
+            return scratch.clear();
+        }
+
+        ByteBuffer directKey(byte[] rowKey) {
+            if (keyScratch == null || keyScratch.capacity() < rowKey.length) {
+                keyScratch = ByteBuffer.allocateDirect(Math.max(rowKey.length, 256));
+            }
+            return keyScratch.clear().put(rowKey).flip();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package org.ivy.settlement.infrastructure.datasource.rocksdb;
+
+import org.ivy.settlement.infrastructure.async.IrisSettlementWorker;
+import org.rocksdb.RocksDBException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * description: syncs the WAL of a db at a fixed interval, so the writes of the column families
+ * with ColumnFamilySettings.Durability.ASYNC lose at most one interval on a machine crash
+ * while they return without waiting for an fsync. close wakes the worker, which syncs the WAL a
+ * last time and leaves the loop instead of waiting for another interval.
+ * @author carrot
+ */
+class WalFlushWorker extends IrisSettlementWorker {
+
+    private static final Logger logger = LoggerFactory.getLogger("db");
+
+    final RocksDbSource dbSource;
+
+    final long intervalMs;
+
+    final CountDownLatch closeLatch = new CountDownLatch(1);
+
+    WalFlushWorker(RocksDbSource dbSource, long intervalMs) {
+        super(dbSource.name + "_wal_flush");
+        this.dbSource = dbSource;
+        this.intervalMs = intervalMs;
+    }
+
+    @Override
+    protected void doWork() throws Exception {
+        if (closeLatch.await(intervalMs, TimeUnit.MILLISECONDS)) {
+            // the final sync, nothing is scheduled after it
+            stop();
+        }
+        syncWal();
+    }
+
+    private void syncWal() {
+        try {
+            dbSource.db.flushWal(true);
+        } catch (RocksDBException e) {
+            logger.error("Failed to sync WAL of db '{}'", dbSource.name, e);
+        }
+    }
+
+    void close() {
+        closeLatch.countDown();
+        terminateAndFullAwait();
+    }
+}
@@ -3,7 +3,8 @@ package org.ivy.settlement.infrastructure.datasource.rocksdb;
 import org.rocksdb.WriteBatch;
 
 /**
- * description:
+ * description: values are sealed before they reach the batch, see RocksDbSource.storedValue,
+ * so direct puts, transactions and sst ingestion which bypass batches are encrypted as well.
  * @author carrot
  */
 public class WriteBatchFactory {
@@ -14,10 +15,5 @@ public class WriteBatchFactory {
 
     public WriteBatch getInstance() {
         return new WriteBatch();
-//        if (!systemConfig.dataNeedEncrypt()) {
-//            return new WriteBatch();
-//        } else {
-//            return new EncryptWriteBatch(systemConfig.getCipherKey());
-//        }
     }
 }
@@ -0,0 +1,139 @@
+package org.ivy.settlement.infrastructure.datasource.rocksdb;
+
+import org.ivy.settlement.infrastructure.datasource.ColumnFamilySettings;
+import org.ivy.settlement.infrastructure.datasource.model.Persistable;
+import org.rocksdb.ColumnFamilyHandle;
+import org.rocksdb.CompactRangeOptions;
+import org.rocksdb.FlushOptions;
+import org.rocksdb.RocksDBException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * description: trains the zstd dictionaries of a column family configured with
+ * ColumnFamilySettings.bottommostCompression = ZSTD and zstdDictionarySize > 0.
+ *
+ * rocksdb only trains a dictionary when it writes a bottommost file, so data written before
+ * the settings were enabled keeps its old compression until compaction happens to reach it.
+ * the tool flushes the column family and forces a rewrite of the bottommost level, each new
+ * file is compressed with a dictionary sampled from its own blocks and stores that dictionary
+ * in its meta block, there is no separate dictionary file to ship or to lose.
+ * the returned report compares the sst bytes before and after with the raw key/value bytes.
+ * @author carrot
+ */
+public class ZstdDictionaryTool {
+
+    private static final Logger logger = LoggerFactory.getLogger("db");
+
+    public static Report train(RocksDbSource dbSource, Class<? extends Persistable> model) {
+        var cfSettings = dbSource.settings.getColumnFamilySettings(model);
+        if (cfSettings.getBottommostCompression() != ColumnFamilySettings.Compression.ZSTD || cfSettings.getZstdDictionarySize() <= 0) {
+            throw new IllegalArgumentException(model.getSimpleName() + " is not configured with a zstd dictionary on the bottommost level");
+        }
+
+        var handle = dbSource.clazz2HandleTable.get(model);
+        try (var flushOptions = new FlushOptions().setWaitForFlush(true);
+             var compactOptions = new CompactRangeOptions()
+                     .setBottommostLevelCompaction(CompactRangeOptions.BottommostLevelCompaction.kForce)
+                     .setExclusiveManualCompaction(false)) {
+            var before = sstBytes(dbSource, handle);
+            var start = System.currentTimeMillis();
+            dbSource.db.flush(flushOptions, handle);
+            dbSource.db.compactRange(handle, null, null, compactOptions);
+            var report = newReport(dbSource, handle, before);
+            logger.info("zstd dictionary training of db '{}' {} finished in {} ms, {}", dbSource.name, model.getSimpleName(), System.currentTimeMillis() - start, report);
+            return report;
+        } catch (RocksDBException e) {
+            logger.error("Failed to train zstd dictionary of db '{}' {}", dbSource.name, model.getSimpleName(), e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * compression of the column family as it is now, without rewriting anything
+     */
+    public static Report inspect(RocksDbSource dbSource, Class<? extends Persistable> model) {
+        var handle = dbSource.clazz2HandleTable.get(model);
+        try {
+            return newReport(dbSource, handle, sstBytes(dbSource, handle));
+        } catch (RocksDBException e) {
+            logger.error("Failed to inspect compression of db '{}' {}", dbSource.name, model.getSimpleName(), e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static long sstBytes(RocksDbSource dbSource, ColumnFamilyHandle handle) throws RocksDBException {
+        return dbSource.db.getLongProperty(handle, "rocksdb.live-sst-files-size");
+    }
+
+    private static Report newReport(RocksDbSource dbSource, ColumnFamilyHandle handle, long before) throws RocksDBException {
+        var rawBytes = 0L;
+        var dataBytes = 0L;
+        var files = 0;
+        for (var properties : dbSource.db.getPropertiesOfAllTables(handle).values()) {
+            rawBytes += properties.getRawKeySize() + properties.getRawValueSize();
+            dataBytes += properties.getDataSize();
+            files++;
+        }
+        return new Report(files, rawBytes, dataBytes, before, sstBytes(dbSource, handle));
+    }
+
+    public static class Report {
+
+        final int files;
+
+        // uncompressed key and value bytes of all live files
+        final long rawBytes;
+
+        // compressed data blocks of all live files
+        final long dataBytes;
+
+        final long sstBytesBefore;
+
+        final long sstBytesAfter;
+
+        public Report(int files, long rawBytes, long dataBytes, long sstBytesBefore, long sstBytesAfter) {
+            this.files = files;
+            this.rawBytes = rawBytes;
+            this.dataBytes = dataBytes;
+            this.sstBytesBefore = sstBytesBefore;
+            this.sstBytesAfter = sstBytesAfter;
+        }
+
+        public int getFiles() {
+            return files;
+        }
+
+        public long getRawBytes() {
+            return rawBytes;
+        }
+
+        public long getDataBytes() {
+            return dataBytes;
+        }
+
+        public long getSstBytesBefore() {
+            return sstBytesBefore;
+        }
+
+        public long getSstBytesAfter() {
+            return sstBytesAfter;
+        }
+
+        public double compressionRatio() {
+            return dataBytes == 0 ? 0 : (double) rawBytes / dataBytes;
+        }
+
+        @Override
+        public String toString() {
+            return "Report{" +
+                    "files=" + files +
+                    ", rawBytes=" + rawBytes +
+                    ", dataBytes=" + dataBytes +
+                    ", compressionRatio=" + String.format("%.2f", compressionRatio()) +
+                    ", sstBytesBefore=" + sstBytesBefore +
+                    ", sstBytesAfter=" + sstBytesAfter +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package org.ivy.settlement.infrastructure.metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * description: one sampled value, named and labelled the prometheus way, e.g.
+ * rocksdb_estimate_pending_compaction_bytes{db="beacon",cf="block"}.
+ * @author carrot
+ */
+public class Metric {
+
+    public enum Type {
+        COUNTER,
+        GAUGE,
+        // quantile series plus <family>_sum and <family>_count of one histogram
+        SUMMARY
+    }
+
+    final String name;
+
+    // name of the # TYPE line the series is listed under, the name itself except for summary _sum and _count
+    final String family;
+
+    final Type type;
+
+    final Map<String, String> labels;
+
+    final double value;
+
+    public Metric(String name, Type type, Map<String, String> labels, double value) {
+        this(name, name, type, labels, value);
+    }
+
+    public Metric(String name, String family, Type type, Map<String, String> labels, double value) {
+        this.name = name;
+        this.family = family;
+        this.type = type;
+        this.labels = labels;
+        this.value = value;
+    }
+
+    public static Metric counter(String name, Map<String, String> labels, double value) {
+        return new Metric(name, Type.COUNTER, labels, value);
+    }
+
+    public static Metric gauge(String name, Map<String, String> labels, double value) {
+        return new Metric(name, Type.GAUGE, labels, value);
+    }
+
+    /**
+     * one quantile of a summary, e.g. quantile("0.99")
+     */
+    public static Metric summary(String family, Map<String, String> labels, String quantile, double value) {
+        var withQuantile = new HashMap<>(labels);
+        withQuantile.put("quantile", quantile);
+        return new Metric(family, family, Type.SUMMARY, withQuantile, value);
+    }
+
+    public static Metric summaryCount(String family, Map<String, String> labels, double count) {
+        return new Metric(family + "_count", family, Type.SUMMARY, labels, count);
+    }
+
+    public static Metric summarySum(String family, Map<String, String> labels, double sum) {
+        return new Metric(family + "_sum", family, Type.SUMMARY, labels, sum);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getFamily() {
+        return family;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Map<String, String> getLabels() {
+        return labels;
+    }
+
+    public double getValue() {
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return "Metric{" +
+                "name='" + name + '\'' +
+                ", type=" + type +
+                ", labels=" + labels +
+                ", value=" + value +
+                '}';
+    }
+}
@@ -0,0 +1,16 @@
+package org.ivy.settlement.infrastructure.metrics;
+
+import java.util.List;
+
+/**
+ * description: receives the metrics sampled by a collector, implementations forward them to
+ * whatever monitoring system is in use. called from the collector thread, must not block for long.
+ * @author carrot
+ */
+public interface MetricsPublisher {
+
+    /**
+     * @param source identifies the collector, every publish of a source replaces its previous samples
+     */
+    void publish(String source, List<Metric> metrics);
+}
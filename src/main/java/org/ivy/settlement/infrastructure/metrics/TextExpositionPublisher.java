@@ -0,0 +1,117 @@
+package org.ivy.settlement.infrastructure.metrics;
+
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * description: keeps the latest samples of every source and renders them in the prometheus
+ * text exposition format, optionally served over http at /metrics.
+ * @author carrot
+ */
+public class TextExpositionPublisher implements MetricsPublisher, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger("metrics");
+
+    final Map<String, List<Metric>> latest = new ConcurrentHashMap<>();
+
+    HttpServer server;
+
+    ExecutorService executor;
+
+    @Override
+    public void publish(String source, List<Metric> metrics) {
+        this.latest.put(source, List.copyOf(metrics));
+    }
+
+    public String render() {
+        // one # TYPE line per family, a summary lists its quantiles, _sum and _count under it
+        var byFamily = new TreeMap<String, List<Metric>>();
+        for (var metrics : latest.values()) {
+            for (var metric : metrics) {
+                byFamily.computeIfAbsent(metric.getFamily(), k -> new ArrayList<>()).add(metric);
+            }
+        }
+
+        var out = new StringBuilder();
+        for (var entry : byFamily.entrySet()) {
+            out.append("# TYPE ").append(entry.getKey()).append(' ')
+                    .append(entry.getValue().get(0).getType().name().toLowerCase()).append('\n');
+            for (var metric : entry.getValue()) {
+                out.append(metric.getName());
+                if (!metric.getLabels().isEmpty()) {
+                    out.append('{');
+                    var first = true;
+                    for (var label : new TreeMap<>(metric.getLabels()).entrySet()) {
+                        if (!first) out.append(',');
+                        first = false;
+                        out.append(label.getKey()).append("=\"").append(escape(label.getValue())).append('"');
+                    }
+                    out.append('}');
+                }
+                out.append(' ').append(format(metric.getValue())).append('\n');
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * serve {@link #render()} at http://host:port/metrics
+     */
+    public synchronized void serve(int port) {
+        if (server != null) return;
+        try {
+            server = HttpServer.create(new InetSocketAddress(port), 0);
+            server.createContext("/metrics", exchange -> {
+                var body = render().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+                exchange.sendResponseHeaders(200, body.length);
+                try (var os = exchange.getResponseBody()) {
+                    os.write(body);
+                }
+            });
+            executor = Executors.newSingleThreadExecutor(r -> {
+                var thread = new Thread(r, "metrics-http");
+                thread.setDaemon(true);
+                return thread;
+            });
+            server.setExecutor(executor);
+            server.start();
+            logger.info("metrics endpoint listening on port {}", port);
+        } catch (IOException e) {
+            logger.error("Failed to start metrics endpoint on port {}", port, e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static String format(double value) {
+        if (value == Math.rint(value) && !Double.isInfinite(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdown();
+            server = null;
+        }
+    }
+}
@@ -83,7 +83,7 @@ public class RLP {
      * - so 56 and 2^64 space seems like the right place to put the cutoff
      * - also, that's where Bitcoin's varint does the cutof
      */
-    private static final int SIZE_THRESHOLD = 56;
+    static final int SIZE_THRESHOLD = 56;
 
     /** RLP encoding rules are defined as follows: */
 
@@ -98,7 +98,7 @@ public class RLP {
      * byte with value 0x80 plus the length of the string followed by the
      * string. The range of the first byte is thus [0x80, 0xb7].
      */
-    private static final int OFFSET_SHORT_ITEM = 0x80;
+    static final int OFFSET_SHORT_ITEM = 0x80;
 
     /**
      * [0xb7]
@@ -109,7 +109,7 @@ public class RLP {
      * \xb9\x04\x00 followed by the string. The range of the first byte is thus
      * [0xb8, 0xbf].
      */
-    private static final int OFFSET_LONG_ITEM = 0xb7;
+    static final int OFFSET_LONG_ITEM = 0xb7;
 
     /**
      * [0xc0]
@@ -119,7 +119,7 @@ public class RLP {
      * of the RLP encodings of the items. The range of the first byte is thus
      * [0xc0, 0xf7].
      */
-    private static final int OFFSET_SHORT_LIST = 0xc0;
+    static final int OFFSET_SHORT_LIST = 0xc0;
 
     /**
      * [0xf7]
@@ -129,7 +129,7 @@ public class RLP {
      * followed by the concatenation of the RLP encodings of the items. The
      * range of the first byte is thus [0xf8, 0xff].
      */
-    private static final int OFFSET_LONG_LIST = 0xf7;
+    static final int OFFSET_LONG_LIST = 0xf7;
 
 
     /* ******************************************************
@@ -402,7 +402,7 @@ public class RLP {
      *
      * @return calculated length
      */
-    private static int calcLength(int lengthOfLength, byte[] msgData, int pos) {
+    static int calcLength(int lengthOfLength, byte[] msgData, int pos) {
         byte pow = (byte) (lengthOfLength - 1);
         int length = 0;
         for (int i = 1; i <= lengthOfLength; ++i) {
@@ -637,7 +637,7 @@ public class RLP {
      * @param availableLength   Length of remaining object
      * @throws RuntimeException if supplied length is bigger than available
      */
-    private static void verifyLength(int suppliedLength, int availableLength) {
+    static void verifyLength(int suppliedLength, int availableLength) {
         if (suppliedLength > availableLength) {
             throw new RuntimeException(String.format("Length parsed from RLP (%s bytes) is greater " +
                             "than possible size of data (%s bytes)", suppliedLength, availableLength));
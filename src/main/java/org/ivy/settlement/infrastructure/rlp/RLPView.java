@@ -0,0 +1,222 @@
+package org.ivy.settlement.infrastructure.rlp;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+import static org.ivy.settlement.infrastructure.rlp.RLP.OFFSET_LONG_ITEM;
+import static org.ivy.settlement.infrastructure.rlp.RLP.OFFSET_LONG_LIST;
+import static org.ivy.settlement.infrastructure.rlp.RLP.OFFSET_SHORT_ITEM;
+import static org.ivy.settlement.infrastructure.rlp.RLP.OFFSET_SHORT_LIST;
+import static org.ivy.settlement.infrastructure.rlp.RLP.SIZE_THRESHOLD;
+import static org.ivy.settlement.infrastructure.rlp.RLP.calcLength;
+import static org.ivy.settlement.infrastructure.rlp.RLP.verifyLength;
+
+/**
+ * description: zero copy view of one rlp element, a (buffer, offset, length) slice of the encoded
+ * bytes. unlike {@link RLP#decode2} nothing is copied while decoding, the children of a list are
+ * located on first access by walking their headers and bytes are only copied by {@link #bytes()}
+ * and {@link #encoded()}, for the fields a model keeps.
+ *
+ * bytes() and encoded() follow RLPItem.getRLPData and RLPList.getRLPData, i.e. null for an empty
+ * item and the whole encoding of a nested list, so decoders can be migrated one field at a time.
+ * non canonical headers are rejected like decode2 does.
+ * not thread safe.
+ * @author carrot
+ */
+public final class RLPView {
+
+    final byte[] buffer;
+
+    // first byte of the header
+    final int offset;
+
+    final int dataOffset;
+
+    final int dataLength;
+
+    final boolean list;
+
+    // header offsets of the children, null until a child is accessed
+    int[] children;
+
+    int size;
+
+    RLPView(byte[] buffer, int offset) {
+        if (offset >= buffer.length) {
+            throw new RuntimeException("RLP element starts at " + offset + " beyond the " + buffer.length + " bytes of data");
+        }
+        this.buffer = buffer;
+        this.offset = offset;
+        var prefix = buffer[offset] & 0xFF;
+        if (prefix < OFFSET_SHORT_ITEM) {  // [0x00, 0x7f], the byte is its own value
+            this.dataOffset = offset;
+            this.dataLength = 1;
+            this.list = false;
+        } else if (prefix <= OFFSET_LONG_ITEM) {  // [0x80, 0xb7]
+            this.dataOffset = offset + 1;
+            this.dataLength = prefix - OFFSET_SHORT_ITEM;
+            this.list = false;
+            if (dataLength == 1 && dataOffset < buffer.length && (buffer[dataOffset] & 0xFF) < OFFSET_SHORT_ITEM) {
+                throw new RuntimeException("Single byte has been encoded as byte string");
+            }
+        } else if (prefix < OFFSET_SHORT_LIST) {  // [0xb8, 0xbf]
+            var lengthOfLength = prefix - OFFSET_LONG_ITEM;
+            this.dataOffset = offset + 1 + lengthOfLength;
+            this.dataLength = calcLength(lengthOfLength, buffer, offset);
+            this.list = false;
+            if (dataLength < SIZE_THRESHOLD) {
+                throw new RuntimeException("Short item has been encoded as long item");
+            }
+        } else if (prefix <= OFFSET_LONG_LIST) {  // [0xc0, 0xf7]
+            this.dataOffset = offset + 1;
+            this.dataLength = prefix - OFFSET_SHORT_LIST;
+            this.list = true;
+        } else {  // [0xf8, 0xff]
+            var lengthOfLength = prefix - OFFSET_LONG_LIST;
+            this.dataOffset = offset + 1 + lengthOfLength;
+            this.dataLength = calcLength(lengthOfLength, buffer, offset);
+            this.list = true;
+            if (dataLength < SIZE_THRESHOLD) {
+                throw new RuntimeException("Short list has been encoded as long list");
+            }
+        }
+        verifyLength(dataLength, buffer.length - dataOffset);
+    }
+
+    /**
+     * view of the element encoded at the start of data
+     */
+    public static RLPView of(byte[] data) {
+        return new RLPView(data, 0);
+    }
+
+    public static RLPView of(byte[] data, int offset) {
+        return new RLPView(data, offset);
+    }
+
+    public boolean isList() {
+        return list;
+    }
+
+    /**
+     * number of children of a list
+     */
+    public int size() {
+        index();
+        return size;
+    }
+
+    public RLPView get(int index) {
+        index();
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("RLP list of " + size + " elements has no element " + index);
+        }
+        return new RLPView(buffer, children[index]);
+    }
+
+    private void index() {
+        if (children != null) return;
+        if (!list) {
+            throw new RuntimeException("RLP element at " + offset + " is not a list");
+        }
+        var offsets = new int[8];
+        var count = 0;
+        var pos = dataOffset;
+        var end = dataOffset + dataLength;
+        while (pos < end) {
+            if (count == offsets.length) offsets = Arrays.copyOf(offsets, count * 2);
+            offsets[count++] = pos;
+            pos = new RLPView(buffer, pos).end();
+        }
+        if (pos != end) {
+            throw new RuntimeException("RLP list at " + offset + " overruns its length");
+        }
+        this.children = offsets;
+        this.size = count;
+    }
+
+    /**
+     * offset right after the element
+     */
+    int end() {
+        return dataOffset + dataLength;
+    }
+
+    public boolean isEmpty() {
+        return dataLength == 0;
+    }
+
+    /**
+     * copy of the payload, null when it is empty
+     */
+    public byte[] bytes() {
+        if (dataLength == 0) return null;
+        return Arrays.copyOfRange(buffer, dataOffset, dataOffset + dataLength);
+    }
+
+    /**
+     * copy of the whole element including its header, e.g. to build a nested model
+     */
+    public byte[] encoded() {
+        return Arrays.copyOfRange(buffer, offset, end());
+    }
+
+    /**
+     * view of the element encoded in the payload of this item, for models which wrap an encoding
+     * with RLP.encodeElement. same as RLP.decode2(getRLPData()).get(0) without copying the payload
+     */
+    public RLPView nested() {
+        if (list) {
+            throw new RuntimeException("RLP element at " + offset + " is a list, not an item");
+        }
+        if (dataLength == 0) {
+            throw new RuntimeException("RLP item at " + offset + " is empty");
+        }
+        var nested = new RLPView(buffer, dataOffset);
+        if (nested.end() > end()) {
+            throw new RuntimeException("RLP element nested at " + dataOffset + " overruns its item");
+        }
+        return nested;
+    }
+
+    /**
+     * unsigned big endian value of the payload, 0 when it is empty, like ByteUtil.byteArrayToInt
+     */
+    public int asInt() {
+        return (int) asLong();
+    }
+
+    /**
+     * unsigned big endian value of the payload, 0 when it is empty, like ByteUtil.byteArrayToLong
+     */
+    public long asLong() {
+        var value = 0L;
+        for (var i = dataOffset; i < dataOffset + dataLength; i++) {
+            value = (value << 8) | (buffer[i] & 0xFF);
+        }
+        return value;
+    }
+
+    public BigInteger asBigInteger() {
+        return dataLength == 0 ? BigInteger.ZERO : new BigInteger(1, buffer, dataOffset, dataLength);
+    }
+
+    /**
+     * payload as string in the default charset, null when it is empty
+     */
+    public String asString() {
+        return dataLength == 0 ? null : new String(buffer, dataOffset, dataLength);
+    }
+
+    public byte[] getBuffer() {
+        return buffer;
+    }
+
+    public int getDataOffset() {
+        return dataOffset;
+    }
+
+    public int getDataLength() {
+        return dataLength;
+    }
+}
@@ -0,0 +1,73 @@
+package org.ivy.settlement.infrastructure.collections;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * description: the segments of WeightedLRUCache share one budget.
+ * @author carrot
+ */
+public class WeightedLRUCacheTest {
+
+    static WeightedLRUCache<Integer, byte[]> newCache(long maxBytes) {
+        return new WeightedLRUCache<>(maxBytes, key -> 16, value -> value.length);
+    }
+
+    static void put(WeightedLRUCache<Integer, byte[]> cache, int key, int bytes) {
+        cache.putIfGeneration(key, new byte[bytes], cache.generation(key));
+    }
+
+    @Test
+    public void valueLargerThanOneSegmentShareIsCached() {
+        var cache = newCache(10_000);
+        put(cache, 1, 5_000);
+        assertNotNull(cache.get(1));
+    }
+
+    @Test
+    public void valueLargerThanTheBudgetIsNotCached() {
+        var cache = newCache(10_000);
+        put(cache, 1, 10_000);
+        assertNull(cache.get(1));
+        assertEquals(0, cache.stats().getBytes());
+    }
+
+    @Test
+    public void insertEvictsOtherSegmentsToStayInBudget() {
+        var cache = newCache(10_000);
+        for (var key = 0; key < 100; key++) {
+            put(cache, key, 1_000);
+            assertTrue(cache.stats().getBytes() <= 10_000);
+        }
+        put(cache, 1_000, 9_000);
+        assertNotNull(cache.get(1_000));
+        assertEquals(1, cache.stats().getEntries());
+        assertEquals(9_016, cache.stats().getBytes());
+    }
+
+    @Test
+    public void recentlyUsedEntrySurvivesEvictionInItsSegment() {
+        var cache = newCache(3 * 1_016);
+        // keys 0, 16 and 32 share a segment
+        put(cache, 0, 1_000);
+        put(cache, 16, 1_000);
+        put(cache, 32, 1_000);
+        cache.get(0);
+        put(cache, 48, 1_000);
+        assertNotNull(cache.get(0));
+        assertNull(cache.get(16));
+    }
+
+    @Test
+    public void loadStartedBeforeInvalidationIsDropped() {
+        var cache = newCache(10_000);
+        var generation = cache.generation(1);
+        cache.invalidate(1);
+        cache.putIfGeneration(1, new byte[10], generation);
+        assertNull(cache.get(1));
+    }
+}
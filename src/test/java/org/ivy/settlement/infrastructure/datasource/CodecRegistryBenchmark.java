@@ -0,0 +1,61 @@
+package org.ivy.settlement.infrastructure.datasource;
+
+import org.ivy.settlement.follower.model.FollowerChainSyncOffset;
+import org.ivy.settlement.infrastructure.datasource.model.Persistable;
+import org.ivy.settlement.infrastructure.datasource.model.UInt64Counter;
+import org.junit.Test;
+
+import java.lang.reflect.Constructor;
+import java.util.function.Function;
+
+/**
+ * description: cost of decoding through the registry against the reflective
+ * Constructor.newInstance it replaced and a direct constructor call. small models are used, so
+ * the call overhead is not hidden by the decoding itself. run with
+ * mvn test -Pbenchmark -Dtest=CodecRegistryBenchmark.
+ * @author carrot
+ */
+public class CodecRegistryBenchmark {
+
+    static final int DECODES = 20_000_000;
+
+    @Test
+    public void registryAgainstReflection() throws Exception {
+        compare(UInt64Counter.class, new UInt64Counter(42).getEncoded(), UInt64Counter::new);
+        compare(FollowerChainSyncOffset.class, new FollowerChainSyncOffset(2, 19_000_000).getEncoded(), FollowerChainSyncOffset::new);
+    }
+
+    private <T extends Persistable> void compare(Class<T> model, byte[] encoded, Function<byte[], T> direct) throws Exception {
+        var registry = new CodecRegistry();
+        registry.registerDefault(model);
+        var decoder = registry.decoder(model);
+        var constructor = model.getConstructor(byte[].class);
+
+        for (var round = 0; round < 3; round++) {
+            var reflective = measure(bytes -> newInstance(constructor, bytes), encoded);
+            var registered = measure(decoder, encoded);
+            var plain = measure(direct, encoded);
+            System.out.printf("%-24s round %d  Constructor.newInstance %5.1f ns  registry %5.1f ns  new %5.1f ns%n",
+                    model.getSimpleName(), round, reflective, registered, plain);
+        }
+    }
+
+    private static double measure(Function<byte[], ? extends Persistable> decoder, byte[] encoded) {
+        var sum = 0L;
+        var start = System.nanoTime();
+        for (var i = 0; i < DECODES; i++) {
+            sum += decoder.apply(encoded).valueBytes().length;
+        }
+        var nanos = (double) (System.nanoTime() - start) / DECODES;
+        if (sum < 0) throw new IllegalStateException();
+        return nanos;
+    }
+
+    private static <T> T newInstance(Constructor<T> constructor, byte[] bytes) {
+        try {
+            return constructor.newInstance((Object) bytes);
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
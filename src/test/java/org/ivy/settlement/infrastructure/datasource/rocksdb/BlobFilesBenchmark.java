@@ -0,0 +1,104 @@
+package org.ivy.settlement.infrastructure.datasource.rocksdb;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.ivy.settlement.infrastructure.bytes.ByteUtil;
+import org.ivy.settlement.infrastructure.datasource.DbSettings;
+import org.ivy.settlement.infrastructure.datasource.model.DefaultValueable;
+import org.ivy.settlement.infrastructure.datasource.model.Keyable;
+import org.ivy.settlement.infrastructure.datasource.model.Persistable;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.rocksdb.CompactRangeOptions;
+import org.rocksdb.TickerType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * description: ingest of large values, sized like the beacon block records, into a column family
+ * with and without blob files. half of the writes overwrite an earlier key, so compaction has
+ * garbage to drop. write amplification is (flush + compaction bytes) / user bytes, like the
+ * rocksdb_write_amplification gauge, once after the ingest and once after a full compaction. the
+ * blob bytes are part of the flush and compaction bytes and printed for the split only.
+ * the rows can be changed with -Dbench.rows. run with mvn test -Pbenchmark -Dtest=BlobFilesBenchmark.
+ * @author carrot
+ */
+public class BlobFilesBenchmark {
+
+    public static class LargeRecord extends DefaultValueable {
+        public LargeRecord(byte[] rlpEncoded) {
+            super(rlpEncoded);
+        }
+    }
+
+    static final int ROWS = Integer.getInteger("bench.rows", 60_000);
+
+    static final int VALUE_SIZE = 16 * 1024;
+
+    static final int MIN_BLOB_SIZE = 4 * 1024;
+
+    static final int BATCH = 100;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void blobFilesAgainstInline() throws Exception {
+        for (var round = 0; round < 2; round++) {
+            ingest("inline", DbSettings.newInstance(), round);
+            ingest("blob files", DbSettings.newInstance().withBlobFiles(LargeRecord.class, MIN_BLOB_SIZE), round);
+        }
+    }
+
+    private void ingest(String label, DbSettings settings, int round) throws Exception {
+        var dbSource = new RocksDbSource("db", Map.of("large", LargeRecord.class), folder.newFolder().getPath(), settings);
+        try {
+            var handle = dbSource.clazz2HandleTable.get(LargeRecord.class);
+            var random = new Random(round);
+            var value = new byte[VALUE_SIZE];
+            var start = System.nanoTime();
+            var batch = new ArrayList<Pair<Keyable, Persistable>>(BATCH);
+            for (var i = 0; i < ROWS; i++) {
+                // half of the value is random, so it compresses about like an ssz encoded block
+                random.nextBytes(value);
+                var record = value.clone();
+                Arrays.fill(record, VALUE_SIZE / 2, VALUE_SIZE, (byte) 0);
+                batch.add(Pair.of(new Keyable.DefaultKeyable(ByteUtil.intToBytes(random.nextInt(ROWS / 2))), new LargeRecord(record)));
+                if (batch.size() == BATCH) {
+                    dbSource.updateBatch(batch);
+                    batch = new ArrayList<>(BATCH);
+                }
+            }
+            if (!batch.isEmpty()) dbSource.updateBatch(batch);
+            var ingestNanos = System.nanoTime() - start;
+            System.out.printf("%-10s round %d ingest    %6.2f s  %7.1f MB/s%n", label, round, ingestNanos / 1e9, (double) ROWS * VALUE_SIZE / (ingestNanos / 1e3));
+            report(label, round, "ingest", dbSource);
+
+            start = System.nanoTime();
+            try (var compactOptions = new CompactRangeOptions().setBottommostLevelCompaction(CompactRangeOptions.BottommostLevelCompaction.kForce)) {
+                dbSource.db.compactRange(handle, null, null, compactOptions);
+            }
+            System.out.printf("%-10s round %d compacted %6.2f s%n", label, round, (System.nanoTime() - start) / 1e9);
+            report(label, round, "compacted", dbSource);
+        } finally {
+            dbSource.shutdown();
+        }
+    }
+
+    private static void report(String label, int round, String phase, RocksDbSource dbSource) throws Exception {
+        var statistics = dbSource.statistics;
+        var userBytes = statistics.getTickerCount(TickerType.BYTES_WRITTEN);
+        var flushBytes = statistics.getTickerCount(TickerType.FLUSH_WRITE_BYTES);
+        var compactionBytes = statistics.getTickerCount(TickerType.COMPACT_WRITE_BYTES);
+        var blobBytes = statistics.getTickerCount(TickerType.BLOB_DB_BLOB_FILE_BYTES_WRITTEN);
+        var handle = dbSource.clazz2HandleTable.get(LargeRecord.class);
+        System.out.printf("%-10s round %d %-9s write amplification %5.2f  (flush %,d  compaction %,d  of which blob %,d bytes)  sst %,d  blob files %,d bytes%n",
+                label, round, phase,
+                (double) (flushBytes + compactionBytes) / userBytes, flushBytes, compactionBytes, blobBytes,
+                dbSource.db.getLongProperty(handle, "rocksdb.total-sst-files-size"),
+                dbSource.db.getLongProperty(handle, "rocksdb.total-blob-file-size"));
+    }
+}
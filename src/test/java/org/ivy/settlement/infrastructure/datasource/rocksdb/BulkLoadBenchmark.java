@@ -0,0 +1,89 @@
+package org.ivy.settlement.infrastructure.datasource.rocksdb;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.ivy.settlement.infrastructure.bytes.ByteUtil;
+import org.ivy.settlement.infrastructure.datasource.DbSettings;
+import org.ivy.settlement.infrastructure.datasource.model.DefaultValueable;
+import org.ivy.settlement.infrastructure.datasource.model.Keyable;
+import org.ivy.settlement.infrastructure.datasource.model.Persistable;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * description: backfill of a multi-million row column family through bulkLoad against updateBatch,
+ * both from the same unsorted stream of records into an empty db. the rows can be changed with
+ * -Dbench.rows. run with mvn test -Pbenchmark -Dtest=BulkLoadBenchmark.
+ * @author carrot
+ */
+public class BulkLoadBenchmark {
+
+    public static class BackfillRecord extends DefaultValueable {
+        public BackfillRecord(byte[] rlpEncoded) {
+            super(rlpEncoded);
+        }
+    }
+
+    static final int ROWS = Integer.getInteger("bench.rows", 2_000_000);
+
+    static final int BATCH = 10_000;
+
+    static final int VALUE_SIZE = 200;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void bulkLoadAgainstUpdateBatch() throws Exception {
+        var batched = open();
+        try {
+            var start = System.nanoTime();
+            var batch = new ArrayList<Pair<Keyable, Persistable>>(BATCH);
+            for (var i = 0; i < ROWS; i++) {
+                batch.add(record(i));
+                if (batch.size() == BATCH) {
+                    batched.updateBatch(batch);
+                    batch = new ArrayList<>(BATCH);
+                }
+            }
+            if (!batch.isEmpty()) batched.updateBatch(batch);
+            report("updateBatch", System.nanoTime() - start, batched);
+        } finally {
+            batched.shutdown();
+        }
+
+        var loaded = open();
+        try {
+            var start = System.nanoTime();
+            loaded.bulkLoad(BackfillRecord.class, IntStream.range(0, ROWS).mapToObj(BulkLoadBenchmark::record));
+            report("bulkLoad", System.nanoTime() - start, loaded);
+        } finally {
+            loaded.shutdown();
+        }
+    }
+
+    private RocksDbSource open() throws Exception {
+        return new RocksDbSource("db", Map.of("backfill", BackfillRecord.class), folder.newFolder().getPath(), DbSettings.newInstance());
+    }
+
+    private static void report(String label, long nanos, RocksDbSource dbSource) throws Exception {
+        var handle = dbSource.clazz2HandleTable.get(BackfillRecord.class);
+        System.out.printf("%-12s %,d rows in %6.2f s  %,10.0f rows/s  sst %,d bytes  pending compaction %,d bytes%n",
+                label, ROWS, nanos / 1e9, ROWS / (nanos / 1e9),
+                dbSource.db.getLongProperty(handle, "rocksdb.total-sst-files-size"),
+                dbSource.db.getLongProperty(handle, "rocksdb.estimate-pending-compaction-bytes"));
+    }
+
+    private static Pair<Keyable, Persistable> record(int i) {
+        // a fixed seed per row, so both runs write the same unsorted keys and values
+        var random = new Random(i);
+        var value = new byte[VALUE_SIZE];
+        random.nextBytes(value);
+        return Pair.of(new Keyable.DefaultKeyable(ByteUtil.longToBytes(random.nextLong())), new BackfillRecord(value));
+    }
+}
@@ -0,0 +1,143 @@
+package org.ivy.settlement.infrastructure.datasource.rocksdb;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.ivy.settlement.infrastructure.bytes.ByteUtil;
+import org.ivy.settlement.infrastructure.datasource.DbSettings;
+import org.ivy.settlement.infrastructure.datasource.model.DefaultValueable;
+import org.ivy.settlement.infrastructure.datasource.model.Keyable;
+import org.ivy.settlement.infrastructure.datasource.model.Persistable;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.rocksdb.FlushOptions;
+import org.rocksdb.RocksDBException;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * description: records ingested by RocksDbSource.bulkLoad are readable, and the ingested files are
+ * ordered like ordinary writes: they replace what was written before the load and are replaced by
+ * what is written after it.
+ * @author carrot
+ */
+public class BulkLoadTest {
+
+    public static class BulkRecord extends DefaultValueable {
+        public BulkRecord(byte[] rlpEncoded) {
+            super(rlpEncoded);
+        }
+    }
+
+    static final int RECORDS = 10_000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    RocksDbSource dbSource;
+
+    @Before
+    public void setUp() throws Exception {
+        dbSource = new RocksDbSource("db", Map.of("bulk", BulkRecord.class), folder.newFolder().getPath(), DbSettings.newInstance());
+    }
+
+    @After
+    public void tearDown() {
+        dbSource.shutdown();
+    }
+
+    @Test
+    public void ingestedRecordsAreReadable() {
+        var loaded = dbSource.bulkLoad(BulkRecord.class, IntStream.range(0, RECORDS).mapToObj(i -> record(i, "v1")));
+
+        assertEquals(RECORDS, loaded);
+        for (var i = 0; i < RECORDS; i++) {
+            assertArrayEquals(value(i, "v1"), dbSource.get(BulkRecord.class, key(i)).getEncoded());
+        }
+        assertEquals(RECORDS, dbSource.scan(BulkRecord.class, key(0).keyBytes(), key(RECORDS).keyBytes()).count());
+    }
+
+    @Test
+    public void ingestReplacesEarlierWrites() throws Exception {
+        dbSource.put(key(1), new BulkRecord(value(1, "put")));
+        flush();
+        // still in the memtable when the file is ingested
+        dbSource.put(key(2), new BulkRecord(value(2, "put")));
+
+        dbSource.bulkLoad(BulkRecord.class, IntStream.range(0, 3).mapToObj(i -> record(i, "bulk")));
+
+        assertArrayEquals(value(1, "bulk"), dbSource.get(BulkRecord.class, key(1)).getEncoded());
+        assertArrayEquals(value(2, "bulk"), dbSource.get(BulkRecord.class, key(2)).getEncoded());
+    }
+
+    @Test
+    public void ingestDoesNotShadowLaterWrites() throws Exception {
+        dbSource.bulkLoad(BulkRecord.class, IntStream.range(0, RECORDS).mapToObj(i -> record(i, "bulk")));
+        dbSource.put(key(7), new BulkRecord(value(7, "put")));
+        flush();
+        dbSource.put(key(8), new BulkRecord(value(8, "put")));
+
+        assertArrayEquals(value(7, "put"), dbSource.get(BulkRecord.class, key(7)).getEncoded());
+        assertArrayEquals(value(8, "put"), dbSource.get(BulkRecord.class, key(8)).getEncoded());
+        assertArrayEquals(value(9, "bulk"), dbSource.get(BulkRecord.class, key(9)).getEncoded());
+    }
+
+    @Test
+    public void lastDuplicateWinsWithinAndAcrossChunks() throws Exception {
+        var records = new ArrayList<Pair<Keyable, Persistable>>();
+        for (var round = 0; round < 3; round++) {
+            for (var i = 0; i < 1_000; i++) {
+                records.add(record(i, "round" + round));
+            }
+        }
+        // small chunks, so each round spans several files
+        var loader = new SstBulkLoader(dbSource, dbSource.clazz2HandleTable.get(BulkRecord.class),
+                dbSource.clazz2OptionsTable.get(BulkRecord.class), folder.newFolder().toPath(), 16 * 1024);
+        try {
+            loader.load(records.iterator());
+        } finally {
+            loader.cleanUp();
+        }
+
+        for (var i = 0; i < 1_000; i++) {
+            assertArrayEquals(value(i, "round2"), dbSource.get(BulkRecord.class, key(i)).getEncoded());
+        }
+    }
+
+    @Test
+    public void snapshotOpenedBeforeIngestDoesNotSeeIt() {
+        dbSource.put(key(1), new BulkRecord(value(1, "put")));
+        try (var snapshot = dbSource.openSnapshot()) {
+            dbSource.bulkLoad(BulkRecord.class, IntStream.range(0, 3).mapToObj(i -> record(i, "bulk")));
+
+            assertArrayEquals(value(1, "put"), snapshot.get(BulkRecord.class, key(1)).getEncoded());
+            assertNull(snapshot.get(BulkRecord.class, key(2)));
+        }
+        assertArrayEquals(value(1, "bulk"), dbSource.get(BulkRecord.class, key(1)).getEncoded());
+    }
+
+    private void flush() throws RocksDBException {
+        try (var options = new FlushOptions().setWaitForFlush(true)) {
+            dbSource.db.flush(options, dbSource.clazz2HandleTable.get(BulkRecord.class));
+        }
+    }
+
+    static Pair<Keyable, Persistable> record(long i, String version) {
+        return Pair.of(key(i), new BulkRecord(value(i, version)));
+    }
+
+    static Keyable key(long i) {
+        return new Keyable.DefaultKeyable(ByteUtil.longToBytes(i));
+    }
+
+    static byte[] value(long i, String version) {
+        return (version + ":" + i).getBytes();
+    }
+}
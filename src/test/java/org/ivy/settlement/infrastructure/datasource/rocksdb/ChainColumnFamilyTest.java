@@ -0,0 +1,89 @@
+package org.ivy.settlement.infrastructure.datasource.rocksdb;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.ivy.settlement.infrastructure.bytes.ByteUtil;
+import org.ivy.settlement.infrastructure.datasource.DbSettings;
+import org.ivy.settlement.infrastructure.datasource.model.DefaultValueable;
+import org.ivy.settlement.infrastructure.datasource.model.Immutable;
+import org.ivy.settlement.infrastructure.datasource.model.Keyable;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.rocksdb.FlushOptions;
+import org.rocksdb.MutableColumnFamilyOptions;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * description: the chain column families of a model count towards the backpressure of the db,
+ * and reads from them are not answered by the object cache of the model.
+ * @author carrot
+ */
+public class ChainColumnFamilyTest {
+
+    public static class ChainRecord extends DefaultValueable implements Immutable {
+        public ChainRecord(byte[] rlpEncoded) {
+            super(rlpEncoded);
+        }
+    }
+
+    static final int CHAIN = 7;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    RocksDbSource dbSource;
+
+    @Before
+    public void setUp() throws Exception {
+        var settings = DbSettings.newInstance().withObjectCacheSize(ChainRecord.class, 1024 * 1024);
+        dbSource = new RocksDbSource("db", Map.of("record", ChainRecord.class), folder.newFolder().getPath(), settings);
+        dbSource.createChainColumnFamily(ChainRecord.class, CHAIN);
+    }
+
+    @After
+    public void tearDown() {
+        dbSource.shutdown();
+    }
+
+    @Test
+    public void level0FilesOfChainCountTowardsBackpressure() throws Exception {
+        dbSource.setChainOptions(ChainRecord.class, CHAIN, MutableColumnFamilyOptions.builder().setDisableAutoCompactions(true).build());
+        var handle = dbSource.chainHandles.get(Pair.of(ChainRecord.class, CHAIN));
+        for (var i = 0; i < 3; i++) {
+            dbSource.updateChainBatch(CHAIN, List.of(Pair.of(key(i), new ChainRecord(new byte[]{(byte) i}))));
+            try (var flushOptions = new FlushOptions().setWaitForFlush(true)) {
+                dbSource.db.flush(flushOptions, handle);
+            }
+        }
+
+        assertEquals(3, dbSource.getBackpressure().getLevel0Files());
+        assertTrue(dbSource.getBackpressure().getPressure() > 0);
+    }
+
+    @Test
+    public void chainReadsBypassObjectCache() {
+        dbSource.put(key(1), new ChainRecord(new byte[]{1}));
+        dbSource.get(ChainRecord.class, key(1));
+        dbSource.updateChainBatch(CHAIN, List.of(Pair.of(key(1), new ChainRecord(new byte[]{2}))));
+
+        assertArrayEquals(new byte[]{1}, dbSource.get(ChainRecord.class, key(1)).getEncoded());
+        assertArrayEquals(new byte[]{2}, dbSource.getFromChain(ChainRecord.class, CHAIN, key(1)).getEncoded());
+        dbSource.updateChainBatch(CHAIN, List.of(Pair.of(key(1), new ChainRecord(new byte[]{3}))));
+        assertArrayEquals(new byte[]{3}, dbSource.getFromChain(ChainRecord.class, CHAIN, key(1)).getEncoded());
+        var stats = dbSource.getObjectCacheStats(ChainRecord.class);
+        assertEquals(1, stats.getEntries());
+        assertEquals(1, stats.getHit());
+    }
+
+    static Keyable key(int i) {
+        return new Keyable.DefaultKeyable(ByteUtil.intToBytes(i));
+    }
+}
@@ -0,0 +1,241 @@
+package org.ivy.settlement.infrastructure.datasource.rocksdb;
+
+import org.ivy.settlement.infrastructure.datasource.ColumnFamilySettings.Durability;
+import org.ivy.settlement.infrastructure.datasource.DbSettings;
+import org.ivy.settlement.infrastructure.datasource.model.DefaultValueable;
+import org.ivy.settlement.infrastructure.datasource.model.Keyable;
+import org.ivy.settlement.infrastructure.datasource.model.Persistable;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.rocksdb.TickerType;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * description: recovery guarantees of ColumnFamilySettings.Durability. a process crash is
+ * simulated by copying the files of the open db, i.e. everything handed to the os but nothing
+ * still held in memory, and opening the copy. the copy reads the page cache, so it can not tell
+ * a synced WAL from an unsynced one, the fsyncs are checked on the WAL tickers of the statistics.
+ * @author carrot
+ */
+public class DurabilityRecoveryTest {
+
+    public static class SyncValue extends DefaultValueable {
+        public SyncValue(byte[] rlpEncoded) {
+            super(rlpEncoded);
+        }
+    }
+
+    public static class GroupSyncValue extends DefaultValueable {
+        public GroupSyncValue(byte[] rlpEncoded) {
+            super(rlpEncoded);
+        }
+    }
+
+    public static class AsyncValue extends DefaultValueable {
+        public AsyncValue(byte[] rlpEncoded) {
+            super(rlpEncoded);
+        }
+    }
+
+    public static class NoWalValue extends DefaultValueable {
+        public NoWalValue(byte[] rlpEncoded) {
+            super(rlpEncoded);
+        }
+    }
+
+    static final Map<String, Class<? extends Persistable>> COLUMN_FAMILIES = Map.of(
+            "sync", SyncValue.class,
+            "group_sync", GroupSyncValue.class,
+            "async", AsyncValue.class,
+            "no_wal", NoWalValue.class);
+
+    static final Keyable KEY = new Keyable.DefaultKeyable("slot-1".getBytes());
+
+    static final byte[] VALUE = "beacon block".getBytes();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    final List<RocksDbSource> opened = new ArrayList<>();
+
+    @After
+    public void tearDown() {
+        for (var dbSource : opened) {
+            dbSource.shutdown();
+        }
+    }
+
+    @Test
+    public void walLevelsSurviveProcessCrash() throws IOException {
+        var dbPath = folder.newFolder("primary").getPath();
+        var dbSource = open(dbPath);
+        dbSource.put(KEY, new SyncValue(VALUE));
+        dbSource.put(KEY, new GroupSyncValue(VALUE));
+        dbSource.put(KEY, new AsyncValue(VALUE));
+
+        var recovered = open(crashImage(dbPath));
+        assertArrayEquals(VALUE, recovered.get(SyncValue.class, KEY).getEncoded());
+        assertArrayEquals(VALUE, recovered.get(GroupSyncValue.class, KEY).getEncoded());
+        assertArrayEquals(VALUE, recovered.get(AsyncValue.class, KEY).getEncoded());
+    }
+
+    @Test
+    public void asyncSurvivesProcessCrashAfterPeriodicWalSync() throws Exception {
+        var dbPath = folder.newFolder("primary").getPath();
+        var dbSource = open(dbPath);
+        dbSource.put(KEY, new AsyncValue(VALUE));
+        // let the WalFlushWorker sync at least once
+        Thread.sleep(settings().getWalFlushInterval() * 3);
+
+        var recovered = open(crashImage(dbPath));
+        assertArrayEquals(VALUE, recovered.get(AsyncValue.class, KEY).getEncoded());
+    }
+
+    @Test
+    public void noWalLosesUnflushedWritesOnProcessCrash() throws IOException {
+        var dbPath = folder.newFolder("primary").getPath();
+        var dbSource = open(dbPath);
+        dbSource.put(KEY, new NoWalValue(VALUE));
+
+        var recovered = open(crashImage(dbPath));
+        assertNull(recovered.get(NoWalValue.class, KEY));
+    }
+
+    @Test
+    public void noWalSurvivesShutdown() throws IOException {
+        var dbPath = folder.newFolder("primary").getPath();
+        var dbSource = new RocksDbSource("db", COLUMN_FAMILIES, dbPath, settings());
+        dbSource.put(KEY, new NoWalValue(VALUE));
+        dbSource.shutdown();
+
+        var reopened = open(dbPath);
+        assertArrayEquals(VALUE, reopened.get(NoWalValue.class, KEY).getEncoded());
+    }
+
+    @Test
+    public void onlySyncLevelsFsyncBeforeReturning() throws IOException {
+        // no periodic sync during the test
+        var dbSource = open(folder.newFolder("primary").getPath(), settings().withWalFlushInterval(60_000));
+
+        assertTrue(syncsOf(dbSource, () -> dbSource.put(KEY, new SyncValue(VALUE))) > 0);
+        assertTrue(syncsOf(dbSource, () -> dbSource.put(KEY, new GroupSyncValue(VALUE))) > 0);
+        assertEquals(0, syncsOf(dbSource, () -> dbSource.put(KEY, new AsyncValue(VALUE))));
+        assertEquals(0, syncsOf(dbSource, () -> dbSource.put(KEY, new NoWalValue(VALUE))));
+    }
+
+    @Test
+    public void transactionCommitsWithStrictestDurabilityWritten() throws IOException {
+        var dbSource = open(folder.newFolder("primary").getPath(), settings().withWalFlushInterval(60_000).withOptimisticTransactions(true));
+
+        assertEquals(0, syncsOf(dbSource, () -> dbSource.transaction(tx -> {
+            tx.put(KEY, new AsyncValue(VALUE));
+            return null;
+        })));
+        assertTrue(syncsOf(dbSource, () -> dbSource.transaction(tx -> {
+            tx.put(KEY, new AsyncValue(VALUE));
+            tx.put(KEY, new SyncValue(VALUE));
+            return null;
+        })) > 0);
+
+        var walBytes = dbSource.statistics.getTickerCount(TickerType.WAL_FILE_BYTES);
+        dbSource.transaction(tx -> {
+            tx.put(KEY, new NoWalValue(VALUE));
+            return null;
+        });
+        assertEquals(walBytes, dbSource.statistics.getTickerCount(TickerType.WAL_FILE_BYTES));
+        assertArrayEquals(VALUE, dbSource.get(NoWalValue.class, KEY).getEncoded());
+    }
+
+    @Test
+    public void asyncWalIsSyncedWithinTheInterval() throws Exception {
+        var dbSource = open(folder.newFolder("primary").getPath());
+        var synced = dbSource.statistics.getTickerCount(TickerType.WAL_FILE_SYNCED);
+        dbSource.put(KEY, new AsyncValue(VALUE));
+
+        var deadline = System.currentTimeMillis() + settings().getWalFlushInterval() * 20;
+        while (dbSource.statistics.getTickerCount(TickerType.WAL_FILE_SYNCED) == synced) {
+            assertTrue("WAL not synced within the interval", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void noWalWritesNothingToTheWal() throws IOException {
+        var dbSource = open(folder.newFolder("primary").getPath());
+        var walBytes = dbSource.statistics.getTickerCount(TickerType.WAL_FILE_BYTES);
+        dbSource.put(KEY, new NoWalValue(VALUE));
+
+        assertEquals(walBytes, dbSource.statistics.getTickerCount(TickerType.WAL_FILE_BYTES));
+        dbSource.put(KEY, new AsyncValue(VALUE));
+        assertTrue(dbSource.statistics.getTickerCount(TickerType.WAL_FILE_BYTES) > walBytes);
+    }
+
+    @Test
+    public void walFlushWorkerStopsOnShutdown() throws IOException {
+        var dbSource = new RocksDbSource("db", COLUMN_FAMILIES, folder.newFolder("primary").getPath(), settings().withWalFlushInterval(60_000));
+        assertTrue(walFlushThreadAlive());
+
+        dbSource.shutdown();
+        assertFalse(walFlushThreadAlive());
+    }
+
+    private static long syncsOf(RocksDbSource dbSource, Runnable write) {
+        var synced = dbSource.statistics.getTickerCount(TickerType.WAL_FILE_SYNCED);
+        write.run();
+        return dbSource.statistics.getTickerCount(TickerType.WAL_FILE_SYNCED) - synced;
+    }
+
+    private static boolean walFlushThreadAlive() {
+        return Thread.getAllStackTraces().keySet().stream().anyMatch(thread -> thread.getName().equals("db_wal_flush") && thread.isAlive());
+    }
+
+    private RocksDbSource open(String dbPath) {
+        return open(dbPath, settings());
+    }
+
+    private RocksDbSource open(String dbPath, DbSettings settings) {
+        var dbSource = new RocksDbSource("db", COLUMN_FAMILIES, dbPath, settings);
+        opened.add(dbSource);
+        return dbSource;
+    }
+
+    private static DbSettings settings() {
+        return DbSettings.newInstance()
+                .withWalFlushInterval(50)
+                .withDurability(SyncValue.class, Durability.SYNC)
+                .withDurability(GroupSyncValue.class, Durability.GROUP_SYNC)
+                .withDurability(AsyncValue.class, Durability.ASYNC)
+                .withDurability(NoWalValue.class, Durability.NO_WAL);
+    }
+
+    /**
+     * copy of the files of the open db at dbPath, as a crashed process would leave them
+     */
+    private String crashImage(String dbPath) throws IOException {
+        var source = Path.of(dbPath, "db");
+        var imagePath = folder.newFolder().toPath();
+        var target = imagePath.resolve("db");
+        Files.createDirectories(target);
+        try (var files = Files.list(source)) {
+            for (var file : (Iterable<Path>) files::iterator) {
+                if (file.getFileName().toString().equals("LOCK")) continue;
+                Files.copy(file, target.resolve(file.getFileName()));
+            }
+        }
+        return imagePath.toString();
+    }
+}
@@ -0,0 +1,175 @@
+package org.ivy.settlement.infrastructure.datasource.rocksdb;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.ivy.settlement.infrastructure.bytes.ByteUtil;
+import org.ivy.settlement.infrastructure.datasource.DbSettings;
+import org.ivy.settlement.infrastructure.datasource.model.DefaultValueable;
+import org.ivy.settlement.infrastructure.datasource.model.Keyable;
+import org.ivy.settlement.infrastructure.datasource.model.Persistable;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+/**
+ * description: values of an encrypted column family read back through every write and read path,
+ * are not stored in plain and only open under the row key and column family they were written to.
+ * @author carrot
+ */
+public class EncryptedColumnFamilyTest {
+
+    public static class SecretRecord extends DefaultValueable {
+        public SecretRecord(byte[] rlpEncoded) {
+            super(rlpEncoded);
+        }
+    }
+
+    public static class PlainRecord extends DefaultValueable {
+        public PlainRecord(byte[] rlpEncoded) {
+            super(rlpEncoded);
+        }
+    }
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    RocksDbSource dbSource;
+
+    @Before
+    public void setUp() throws Exception {
+        var settings = DbSettings.newInstance()
+                .withOptimisticTransactions(true)
+                .withEncryptionKey(ByteUtil.hexStringToBytes("000102030405060708090a0b0c0d0e0f"))
+                .withEncryption(SecretRecord.class);
+        dbSource = new RocksDbSource("db", Map.of("secret", SecretRecord.class, "plain", PlainRecord.class), folder.newFolder().getPath(), settings);
+    }
+
+    @After
+    public void tearDown() {
+        dbSource.shutdown();
+    }
+
+    @Test
+    public void everyWritePathRoundTrips() throws Exception {
+        dbSource.put(key(0), new SecretRecord(value(0)));
+        dbSource.updateBatch(List.of(Pair.of(key(1), new SecretRecord(value(1))), Pair.of(key(2), new SecretRecord(value(2)))));
+        dbSource.transaction(tx -> {
+            tx.put(key(3), new SecretRecord(value(3)));
+            return null;
+        });
+        dbSource.bulkLoad(SecretRecord.class, IntStream.range(4, 6).mapToObj(i -> Pair.of(key(i), new SecretRecord(value(i)))));
+        dbSource.put(SecretRecord.class, direct(key(6).keyBytes()), direct(value(6)));
+
+        for (var i = 0; i <= 6; i++) {
+            assertArrayEquals(value(i), dbSource.get(SecretRecord.class, key(i)).getEncoded());
+            assertArrayEquals(value(i), dbSource.getRaw(SecretRecord.class, key(i)));
+            assertStoredSealed(i);
+        }
+    }
+
+    @Test
+    public void everyReadPathOpensValues() throws Exception {
+        var keys = IntStream.range(0, 10).mapToObj(EncryptedColumnFamilyTest::key).collect(Collectors.toList());
+        dbSource.updateBatch(keys.stream().map(key -> Pair.<Keyable, Persistable>of(key, new SecretRecord(value(key.keyBytes()[3])))).collect(Collectors.toList()));
+
+        var scanned = dbSource.scan(SecretRecord.class, null, null).map(Persistable::getEncoded).collect(Collectors.toList());
+        assertEquals(10, scanned.size());
+        assertEquals(10, dbSource.getAll(SecretRecord.class).size());
+        var batch = dbSource.batchGetRaw(SecretRecord.class, keys.stream().map(Keyable::keyBytes).collect(Collectors.toList()));
+        for (var i = 0; i < 10; i++) {
+            assertArrayEquals(value(i), scanned.get(i));
+            assertArrayEquals(value(i), batch.get(i));
+        }
+
+        var valueOut = ByteBuffer.allocateDirect(64);
+        assertEquals(value(7).length, dbSource.get(SecretRecord.class, direct(key(7).keyBytes()), valueOut));
+        assertArrayEquals(value(7), toBytes(valueOut));
+
+        try (var snapshot = dbSource.openSnapshot()) {
+            dbSource.put(key(8), new SecretRecord(value(80)));
+            assertArrayEquals(value(8), snapshot.getRaw(SecretRecord.class, key(8)));
+            assertArrayEquals(value(9), snapshot.batchGetRaw(SecretRecord.class, List.of(key(9).keyBytes())).get(0));
+            assertEquals(10, snapshot.scan(SecretRecord.class, null, null).count());
+        }
+        assertEquals(dbSource.transaction(tx -> tx.getRaw(SecretRecord.class, key(8))).length, value(80).length);
+    }
+
+    @Test
+    public void valueCopiedToAnotherKeyDoesNotOpen() throws Exception {
+        dbSource.put(key(1), new SecretRecord(value(1)));
+        var handle = dbSource.clazz2HandleTable.get(SecretRecord.class);
+        dbSource.db.put(handle, key(2).keyBytes(), dbSource.db.get(handle, key(1).keyBytes()));
+
+        assertDoesNotOpen(() -> dbSource.getRaw(SecretRecord.class, key(2)));
+        assertDoesNotOpen(() -> dbSource.scan(SecretRecord.class, key(2).keyBytes(), null).count());
+        assertArrayEquals(value(1), dbSource.getRaw(SecretRecord.class, key(1)));
+    }
+
+    @Test
+    public void valueCopiedToAnotherChainDoesNotOpen() throws Exception {
+        dbSource.createChainColumnFamily(SecretRecord.class, 1);
+        dbSource.createChainColumnFamily(SecretRecord.class, 2);
+        dbSource.updateChainBatch(1, List.of(Pair.of(key(1), new SecretRecord(value(1)))));
+        assertArrayEquals(value(1), dbSource.getFromChain(SecretRecord.class, 1, key(1)).getEncoded());
+        assertEquals(1, dbSource.scanChainColumnFamily(SecretRecord.class, 1, null, null).count());
+
+        var sealed = dbSource.db.get(dbSource.chainHandles.get(Pair.of(SecretRecord.class, 1)), key(1).keyBytes());
+        dbSource.db.put(dbSource.chainHandles.get(Pair.of(SecretRecord.class, 2)), key(1).keyBytes(), sealed);
+        dbSource.db.put(dbSource.clazz2HandleTable.get(SecretRecord.class), key(1).keyBytes(), sealed);
+
+        assertDoesNotOpen(() -> dbSource.getRawFromChain(SecretRecord.class, 2, key(1)));
+        assertDoesNotOpen(() -> dbSource.getRaw(SecretRecord.class, key(1)));
+    }
+
+    @Test
+    public void plainColumnFamilyIsNotSealed() throws Exception {
+        dbSource.put(key(1), new PlainRecord(value(1)));
+
+        assertArrayEquals(value(1), dbSource.db.get(dbSource.clazz2HandleTable.get(PlainRecord.class), key(1).keyBytes()));
+    }
+
+    private void assertStoredSealed(int i) throws Exception {
+        var stored = dbSource.db.get(dbSource.clazz2HandleTable.get(SecretRecord.class), key(i).keyBytes());
+        assertEquals(value(i).length + ValueCipher.OVERHEAD, stored.length);
+        assertFalse(new String(stored).contains(new String(value(i))));
+    }
+
+    private static void assertDoesNotOpen(Runnable read) {
+        try {
+            read.run();
+            fail("sealed value opened under another key or column family");
+        } catch (RuntimeException expected) {
+        }
+    }
+
+    static Keyable key(int i) {
+        return Keyable.ofDefault(ByteUtil.intToBytes(i));
+    }
+
+    static byte[] value(int i) {
+        return ("secret value " + i).getBytes();
+    }
+
+    static ByteBuffer direct(byte[] bytes) {
+        return ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+    }
+
+    static byte[] toBytes(ByteBuffer buffer) {
+        var bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,118 @@
+package org.ivy.settlement.infrastructure.datasource.rocksdb;
+
+import org.ivy.settlement.infrastructure.datasource.ColumnFamilySettings.MergeOperator;
+import org.ivy.settlement.infrastructure.datasource.DbSettings;
+import org.ivy.settlement.infrastructure.datasource.model.DefaultValueable;
+import org.ivy.settlement.infrastructure.datasource.model.Keyable;
+import org.ivy.settlement.infrastructure.datasource.model.UInt64Counter;
+import org.ivy.settlement.infrastructure.rlp.RLP;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * description: values written by put and merge of the merge operator column families.
+ * @author carrot
+ */
+public class MergeOperatorTest {
+
+    public static class EventList extends DefaultValueable {
+        public EventList(byte[] rlpEncoded) {
+            super(rlpEncoded);
+        }
+    }
+
+    public static class EventCount extends UInt64Counter {
+        public EventCount(byte[] encoded) {
+            super(encoded);
+        }
+
+        public EventCount(long value) {
+            super(value);
+        }
+    }
+
+    static final Keyable KEY = new Keyable.DefaultKeyable("slot-1".getBytes());
+
+    static final byte[] A = RLP.encodeElement("a".getBytes());
+
+    static final byte[] B = RLP.encodeElement("event b".getBytes());
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    RocksDbSource dbSource;
+
+    @Before
+    public void setUp() throws Exception {
+        var settings = DbSettings.newInstance()
+                .withMergeOperator(EventList.class, MergeOperator.RLP_LIST_APPEND)
+                .withMergeOperator(EventCount.class, MergeOperator.UINT64_ADD);
+        dbSource = new RocksDbSource("db", Map.of("events", EventList.class, "count", EventCount.class), folder.newFolder().getPath(), settings);
+    }
+
+    @After
+    public void tearDown() {
+        dbSource.shutdown();
+    }
+
+    @Test
+    public void appendedItemsReadBackAsOneList() {
+        dbSource.put(KEY, new EventList(RLP.encodeList(A)));
+        dbSource.merge(EventList.class, KEY, MergeOperands.rlpAppend(B));
+
+        var expected = RLP.encodeList(A, B);
+        assertArrayEquals(expected, dbSource.get(EventList.class, KEY).getEncoded());
+        assertArrayEquals(expected, dbSource.getRaw(EventList.class, KEY));
+        assertArrayEquals(expected, dbSource.batchGetRaw(EventList.class, List.of(KEY.keyBytes())).get(0));
+        assertEquals(1, dbSource.scan(EventList.class, null, null).count());
+    }
+
+    @Test
+    public void mergeWithoutPutStartsTheList() {
+        dbSource.merge(EventList.class, KEY, MergeOperands.rlpAppend(A));
+        dbSource.merge(EventList.class, KEY, MergeOperands.rlpAppend(B));
+        assertArrayEquals(RLP.encodeList(A, B), dbSource.getRaw(EventList.class, KEY));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void putRejectsLongStringValue() {
+        // 0xb8 prefix, a string of 56 bytes
+        dbSource.put(KEY, new EventList(RLP.encodeElement(new byte[56])));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void putRejectsTrailingBytes() {
+        var list = RLP.encodeList(A);
+        var value = new byte[list.length + 1];
+        System.arraycopy(list, 0, value, 0, list.length);
+        dbSource.put(KEY, new EventList(value));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void byteBufferPutRejectsListAppend() {
+        var list = RLP.encodeList(A);
+        dbSource.put(EventList.class, direct(KEY.keyBytes()), direct(list));
+    }
+
+    @Test
+    public void countersAddUp() {
+        dbSource.put(KEY, new EventCount(5));
+        dbSource.merge(EventCount.class, KEY, MergeOperands.uint64Add(3));
+        dbSource.merge(EventCount.class, KEY, MergeOperands.uint64Add(2));
+        assertEquals(10, dbSource.get(EventCount.class, KEY).getValue());
+    }
+
+    private static ByteBuffer direct(byte[] bytes) {
+        return ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+    }
+}
@@ -0,0 +1,156 @@
+package org.ivy.settlement.infrastructure.datasource.rocksdb;
+
+import org.ivy.settlement.infrastructure.bytes.ByteUtil;
+import org.ivy.settlement.infrastructure.datasource.DbSettings;
+import org.ivy.settlement.infrastructure.datasource.model.Immutable;
+import org.ivy.settlement.infrastructure.datasource.model.Keyable;
+import org.ivy.settlement.infrastructure.datasource.model.Persistable;
+import org.ivy.settlement.infrastructure.rlp.RLP;
+import org.ivy.settlement.infrastructure.rlp.RLPView;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * description: cost of a get served by the object cache against a plain get which reads the
+ * block cache and decodes. every key fits into both caches, so the difference is the lookup in
+ * rocksdb and the rlp decoding saved by a hit. run with mvn test -Pbenchmark -Dtest=ObjectCacheBenchmark.
+ * @author carrot
+ */
+public class ObjectCacheBenchmark {
+
+    public abstract static class Record extends Persistable implements Immutable {
+
+        long number;
+
+        byte[] hash;
+
+        List<byte[]> items;
+
+        Record(byte[] rlpEncoded) {
+            super(rlpEncoded);
+        }
+
+        Record(long number, byte[] hash, List<byte[]> items) {
+            super(null);
+            this.number = number;
+            this.hash = hash;
+            this.items = items;
+            this.rlpEncoded = rlpEncoded();
+        }
+
+        @Override
+        protected byte[] rlpEncoded() {
+            var elements = new byte[2 + items.size()][];
+            elements[0] = RLP.encodeElement(ByteUtil.longToBytes(number));
+            elements[1] = RLP.encodeElement(hash);
+            for (var i = 0; i < items.size(); i++) {
+                elements[i + 2] = RLP.encodeElement(items.get(i));
+            }
+            return RLP.encodeList(elements);
+        }
+
+        @Override
+        protected void rlpDecoded() {
+            var rlpList = RLPView.of(rlpEncoded);
+            this.number = rlpList.get(0).asLong();
+            this.hash = rlpList.get(1).bytes();
+            this.items = new ArrayList<>(rlpList.size() - 2);
+            for (var i = 2; i < rlpList.size(); i++) {
+                this.items.add(rlpList.get(i).bytes());
+            }
+        }
+    }
+
+    public static class CachedRecord extends Record {
+        public CachedRecord(byte[] rlpEncoded) {
+            super(rlpEncoded);
+        }
+
+        CachedRecord(long number, byte[] hash, List<byte[]> items) {
+            super(number, hash, items);
+        }
+    }
+
+    public static class PlainRecord extends Record {
+        public PlainRecord(byte[] rlpEncoded) {
+            super(rlpEncoded);
+        }
+
+        PlainRecord(long number, byte[] hash, List<byte[]> items) {
+            super(number, hash, items);
+        }
+    }
+
+    static final int KEYS = 10_000;
+
+    static final int ITEMS = 40;
+
+    static final int READS = 1_000_000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    RocksDbSource dbSource;
+
+    @Before
+    public void setUp() throws Exception {
+        var settings = DbSettings.newInstance()
+                .withBlockCacheSize(256L * 1024 * 1024)
+                .withObjectCacheSize(CachedRecord.class, 256L * 1024 * 1024);
+        dbSource = new RocksDbSource("db", Map.of("cached", CachedRecord.class, "plain", PlainRecord.class),
+                folder.newFolder().getPath(), settings);
+    }
+
+    @After
+    public void tearDown() {
+        dbSource.shutdown();
+    }
+
+    @Test
+    public void hitAgainstPlainGet() {
+        var random = new Random(42);
+        for (var i = 0; i < KEYS; i++) {
+            var hash = new byte[32];
+            random.nextBytes(hash);
+            var items = new ArrayList<byte[]>(ITEMS);
+            for (var j = 0; j < ITEMS; j++) {
+                var item = new byte[48];
+                random.nextBytes(item);
+                items.add(item);
+            }
+            dbSource.put(key(i), new CachedRecord(i, hash, items));
+            dbSource.put(key(i), new PlainRecord(i, hash, items));
+        }
+
+        for (var round = 0; round < 3; round++) {
+            var plain = measure(PlainRecord.class);
+            var cached = measure(CachedRecord.class);
+            System.out.printf("round %d  plain get %7.0f ns  object cache hit %7.0f ns%n", round, plain, cached);
+        }
+        System.out.println(dbSource.getObjectCacheStats(CachedRecord.class));
+    }
+
+    private double measure(Class<? extends Record> model) {
+        var random = new Random(7);
+        var sum = 0L;
+        var start = System.nanoTime();
+        for (var i = 0; i < READS; i++) {
+            sum += dbSource.get(model, key(random.nextInt(KEYS))).number;
+        }
+        var nanos = (double) (System.nanoTime() - start) / READS;
+        if (sum < 0) throw new IllegalStateException();
+        return nanos;
+    }
+
+    private static Keyable key(long number) {
+        return new Keyable.DefaultKeyable(ByteUtil.longToBytes(number));
+    }
+}
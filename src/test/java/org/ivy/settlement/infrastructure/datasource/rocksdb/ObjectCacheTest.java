@@ -0,0 +1,97 @@
+package org.ivy.settlement.infrastructure.datasource.rocksdb;
+
+import org.ivy.settlement.infrastructure.datasource.DbSettings;
+import org.ivy.settlement.infrastructure.datasource.model.DefaultValueable;
+import org.ivy.settlement.infrastructure.datasource.model.Immutable;
+import org.ivy.settlement.infrastructure.datasource.model.Keyable;
+import org.ivy.settlement.infrastructure.datasource.model.Persistable;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * description: the object cache of RocksDbSource hands out decoded instances of Immutable models.
+ * @author carrot
+ */
+public class ObjectCacheTest {
+
+    public static class CachedValue extends DefaultValueable implements Immutable {
+        public CachedValue(byte[] rlpEncoded) {
+            super(rlpEncoded);
+        }
+    }
+
+    public static class MutableValue extends DefaultValueable {
+        public MutableValue(byte[] rlpEncoded) {
+            super(rlpEncoded);
+        }
+    }
+
+    static final Keyable KEY = new Keyable.DefaultKeyable("slot-1".getBytes());
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    RocksDbSource dbSource;
+
+    @After
+    public void tearDown() {
+        if (dbSource != null) dbSource.shutdown();
+    }
+
+    @Test
+    public void hitReturnsTheCachedInstance() throws Exception {
+        dbSource = open(Map.of("cached", CachedValue.class));
+        dbSource.put(KEY, new CachedValue("v1".getBytes()));
+
+        var first = dbSource.get(CachedValue.class, KEY);
+        var second = dbSource.get(CachedValue.class, KEY);
+
+        assertSame(first, second);
+        assertEquals(1, dbSource.getObjectCacheStats(CachedValue.class).getHit());
+        assertEquals(1, dbSource.getObjectCacheStats(CachedValue.class).getMiss());
+    }
+
+    @Test
+    public void writeInvalidatesTheCachedInstance() throws Exception {
+        dbSource = open(Map.of("cached", CachedValue.class));
+        dbSource.put(KEY, new CachedValue("v1".getBytes()));
+        var before = dbSource.get(CachedValue.class, KEY);
+
+        dbSource.put(KEY, new CachedValue("v2".getBytes()));
+        var after = dbSource.get(CachedValue.class, KEY);
+
+        assertNotSame(before, after);
+        assertArrayEquals("v2".getBytes(), after.getEncoded());
+
+        dbSource.put(KEY, new CachedValue(null));
+        assertNull(dbSource.get(CachedValue.class, KEY));
+    }
+
+    @Test
+    public void mutableModelCanNotBeCached() throws Exception {
+        try {
+            dbSource = open(Map.of("mutable", MutableValue.class));
+            fail();
+        } catch (RuntimeException e) {
+            assertEquals(IllegalArgumentException.class, e.getCause().getClass());
+        }
+    }
+
+    private RocksDbSource open(Map<String, Class<? extends Persistable>> columnFamilies) throws Exception {
+        var settings = DbSettings.newInstance()
+                .withObjectCacheSize(CachedValue.class, 1024 * 1024)
+                .withObjectCacheSize(MutableValue.class, 1024 * 1024);
+        return new RocksDbSource("db", columnFamilies, folder.newFolder().getPath(), settings);
+    }
+}
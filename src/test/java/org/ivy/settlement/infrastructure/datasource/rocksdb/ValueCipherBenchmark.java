@@ -0,0 +1,132 @@
+package org.ivy.settlement.infrastructure.datasource.rocksdb;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.ivy.settlement.infrastructure.bytes.ByteUtil;
+import org.ivy.settlement.infrastructure.datasource.DbSettings;
+import org.ivy.settlement.infrastructure.datasource.model.DefaultValueable;
+import org.ivy.settlement.infrastructure.datasource.model.Keyable;
+import org.ivy.settlement.infrastructure.datasource.model.Persistable;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * description: write and point read throughput of an encrypted column family against a plain one
+ * with the same options, for small and large values, and the cost of the cipher alone. values are
+ * random so compression does not favour the plain column family. the rows can be changed with
+ * -Dbench.rows. run with mvn test -Pbenchmark -Dtest=ValueCipherBenchmark.
+ * @author carrot
+ */
+public class ValueCipherBenchmark {
+
+    public static class PlainRecord extends DefaultValueable {
+        public PlainRecord(byte[] rlpEncoded) {
+            super(rlpEncoded);
+        }
+    }
+
+    public static class SealedRecord extends DefaultValueable {
+        public SealedRecord(byte[] rlpEncoded) {
+            super(rlpEncoded);
+        }
+    }
+
+    static final int ROWS = Integer.getInteger("bench.rows", 500_000);
+
+    static final int BATCH = 1_000;
+
+    static final byte[] KEY = ByteUtil.hexStringToBytes("000102030405060708090a0b0c0d0e0f");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void encryptedAgainstPlain() throws Exception {
+        for (var valueSize : new int[]{100, 4096}) {
+            var rows = valueSize > 1024 ? ROWS / 10 : ROWS;
+            for (var round = 0; round < 2; round++) {
+                var dbSource = new RocksDbSource("db", Map.of("plain", PlainRecord.class, "sealed", SealedRecord.class), folder.newFolder().getPath(),
+                        DbSettings.newInstance().withEncryptionKey(KEY).withEncryption(SealedRecord.class));
+                try {
+                    measure(dbSource, PlainRecord::new, PlainRecord.class, rows, valueSize, round);
+                    measure(dbSource, SealedRecord::new, SealedRecord.class, rows, valueSize, round);
+                } finally {
+                    dbSource.shutdown();
+                }
+            }
+        }
+    }
+
+    @Test
+    public void cipherAlone() {
+        var cipher = new ValueCipher(KEY);
+        var aad = ValueCipher.associatedData("sealed");
+        var key = ByteUtil.longToBytes(42);
+        for (var valueSize : new int[]{100, 4096}) {
+            var value = value(0, valueSize);
+            var values = 2_000_000_000L / (valueSize + 400);
+            for (var round = 0; round < 3; round++) {
+                var start = System.nanoTime();
+                var sum = 0L;
+                for (var i = 0; i < values; i++) {
+                    sum += cipher.seal(aad, key, value).remaining();
+                }
+                var sealNanos = System.nanoTime() - start;
+
+                var sealed = cipher.encrypt(aad, key, value);
+                start = System.nanoTime();
+                for (var i = 0; i < values; i++) {
+                    sum += cipher.decrypt(aad, key, sealed).length;
+                }
+                var openNanos = System.nanoTime() - start;
+                if (sum < 0) throw new IllegalStateException();
+                System.out.printf("cipher %5d B round %d  seal %6.0f ns %7.1f MB/s  open %6.0f ns %7.1f MB/s%n",
+                        valueSize, round, (double) sealNanos / values, values * valueSize / (sealNanos / 1e3),
+                        (double) openNanos / values, values * valueSize / (openNanos / 1e3));
+            }
+        }
+    }
+
+    private static void measure(RocksDbSource dbSource, Function<byte[], Persistable> factory, Class<? extends Persistable> model,
+                                int rows, int valueSize, int round) {
+        var start = System.nanoTime();
+        var batch = new ArrayList<Pair<Keyable, Persistable>>(BATCH);
+        for (var i = 0; i < rows; i++) {
+            batch.add(Pair.of(key(i), factory.apply(value(i, valueSize))));
+            if (batch.size() == BATCH) {
+                dbSource.updateBatch(batch);
+                batch = new ArrayList<>(BATCH);
+            }
+        }
+        if (!batch.isEmpty()) dbSource.updateBatch(batch);
+        var writeNanos = System.nanoTime() - start;
+
+        var random = new Random(round);
+        var bytes = 0L;
+        start = System.nanoTime();
+        for (var i = 0; i < rows; i++) {
+            bytes += dbSource.getRaw(model, key(random.nextInt(rows))).length;
+        }
+        var readNanos = System.nanoTime() - start;
+
+        System.out.printf("%-12s %5d B round %d  write %,10.0f rows/s %7.1f MB/s  get %,10.0f rows/s %7.1f MB/s%n",
+                model.getSimpleName(), valueSize, round,
+                rows / (writeNanos / 1e9), (double) rows * valueSize / (writeNanos / 1e3),
+                rows / (readNanos / 1e9), bytes / (readNanos / 1e3));
+    }
+
+    private static Keyable key(int i) {
+        return new Keyable.DefaultKeyable(ByteUtil.intToBytes(i));
+    }
+
+    private static byte[] value(int i, int valueSize) {
+        var value = new byte[valueSize];
+        new Random(i).nextBytes(value);
+        return value;
+    }
+}
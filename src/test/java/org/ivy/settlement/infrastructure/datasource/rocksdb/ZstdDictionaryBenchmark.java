@@ -0,0 +1,162 @@
+package org.ivy.settlement.infrastructure.datasource.rocksdb;
+
+import org.ivy.settlement.infrastructure.bytes.ByteUtil;
+import org.ivy.settlement.infrastructure.datasource.ColumnFamilySettings.Compression;
+import org.ivy.settlement.infrastructure.datasource.DbSettings;
+import org.ivy.settlement.infrastructure.datasource.model.DefaultValueable;
+import org.ivy.settlement.infrastructure.datasource.model.Keyable;
+import org.ivy.settlement.infrastructure.datasource.model.Persistable;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.rocksdb.CompactRangeOptions;
+import org.rocksdb.FlushOptions;
+import org.rocksdb.RocksDBException;
+
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * description: disk space against point read latency of the same receipt like values stored
+ * uncompressed, with lz4 and with zstd and a trained dictionary on the bottommost level.
+ * the block cache is kept small so most reads decompress a block. prints one line per column
+ * family, run with mvn test -Pbenchmark -Dtest=ZstdDictionaryBenchmark.
+ * @author carrot
+ */
+public class ZstdDictionaryBenchmark {
+
+    public static class PlainRecord extends DefaultValueable {
+        public PlainRecord(byte[] rlpEncoded) {
+            super(rlpEncoded);
+        }
+    }
+
+    public static class Lz4Record extends DefaultValueable {
+        public Lz4Record(byte[] rlpEncoded) {
+            super(rlpEncoded);
+        }
+    }
+
+    public static class ZstdRecord extends DefaultValueable {
+        public ZstdRecord(byte[] rlpEncoded) {
+            super(rlpEncoded);
+        }
+    }
+
+    static final int VALUES = 20_000;
+
+    static final int READS = 20_000;
+
+    static final String[] CONTRACTS = {
+            "0xa0b86991c6218b36c1d19d4a2e9eb0ce3606eb48",
+            "0xdac17f958d2ee523a2206206994597c13d831ec7",
+            "0xc02aaa39b223fe8d0a0e5c4f27ead9083c756cc2",
+            "0x6b175474e89094c44da98b954eedeac495271d0f"
+    };
+
+    static final String TRANSFER_TOPIC = "0xddf252ad1be2c89b69c2b068fc378daa952ba7f163c4a11628f55a4df523b3ef";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    RocksDbSource dbSource;
+
+    @Before
+    public void setUp() throws Exception {
+        var settings = DbSettings.newInstance()
+                .withBlockCacheSize(1024 * 1024)
+                .withCompression(PlainRecord.class, Compression.NONE, Compression.NONE, 0, 0)
+                .withCompression(Lz4Record.class, Compression.LZ4, Compression.LZ4, 0, 0)
+                .withCompression(ZstdRecord.class, Compression.LZ4, Compression.ZSTD, 0, 64 * 1024);
+        dbSource = new RocksDbSource("db", Map.of("plain", PlainRecord.class, "lz4", Lz4Record.class, "zstd", ZstdRecord.class),
+                folder.newFolder().getPath(), settings);
+    }
+
+    @After
+    public void tearDown() {
+        dbSource.shutdown();
+    }
+
+    @Test
+    public void spaceAgainstPointReadLatency() throws Exception {
+        var random = new Random(42);
+        for (var i = 0; i < VALUES; i++) {
+            var key = key(i);
+            var value = receipt(random, i);
+            dbSource.put(key, new PlainRecord(value));
+            dbSource.put(key, new Lz4Record(value));
+            dbSource.put(key, new ZstdRecord(value));
+        }
+
+        var plain = compact(PlainRecord.class);
+        var lz4 = compact(Lz4Record.class);
+        var zstd = ZstdDictionaryTool.train(dbSource, ZstdRecord.class);
+
+        report("none", plain, PlainRecord.class);
+        report("lz4", lz4, Lz4Record.class);
+        report("zstd+dict", zstd, ZstdRecord.class);
+
+    }
+
+    private ZstdDictionaryTool.Report compact(Class<? extends Persistable> model) throws RocksDBException {
+        var handle = dbSource.clazz2HandleTable.get(model);
+        try (var flushOptions = new FlushOptions().setWaitForFlush(true);
+             var compactOptions = new CompactRangeOptions()
+                     .setBottommostLevelCompaction(CompactRangeOptions.BottommostLevelCompaction.kForce)) {
+            dbSource.db.flush(flushOptions, handle);
+            dbSource.db.compactRange(handle, null, null, compactOptions);
+        }
+        return ZstdDictionaryTool.inspect(dbSource, model);
+    }
+
+    private void report(String name, ZstdDictionaryTool.Report report, Class<? extends Persistable> model) {
+        var random = new Random(7);
+        // warm up the code path, not the cache
+        for (var i = 0; i < READS / 10; i++) {
+            dbSource.get(model, key(random.nextInt(VALUES)));
+        }
+        var start = System.nanoTime();
+        for (var i = 0; i < READS; i++) {
+            dbSource.get(model, key(random.nextInt(VALUES)));
+        }
+        var micros = (System.nanoTime() - start) / 1000.0 / READS;
+        System.out.printf("%-10s sst %,12d bytes  data %,12d bytes  ratio %5.2f  point read %6.2f us%n",
+                name, report.getSstBytesAfter(), report.getDataBytes(), report.compressionRatio(), micros);
+    }
+
+    private static Keyable key(long height) {
+        return new Keyable.DefaultKeyable(ByteUtil.longToBytes(height));
+    }
+
+    /**
+     * json like stand in for an rlp encoded receipt: a few transfer logs of well known
+     * contracts, repetitive structure with random amounts and addresses
+     */
+    private static byte[] receipt(Random random, long height) {
+        var receipt = new StringBuilder()
+                .append("{\"status\":1,\"blockNumber\":").append(height)
+                .append(",\"cumulativeGasUsed\":").append(21_000 + random.nextInt(5_000_000))
+                .append(",\"logs\":[");
+        var logs = 1 + random.nextInt(4);
+        for (var i = 0; i < logs; i++) {
+            if (i > 0) receipt.append(',');
+            receipt.append("{\"address\":\"").append(CONTRACTS[random.nextInt(CONTRACTS.length)])
+                    .append("\",\"topics\":[\"").append(TRANSFER_TOPIC)
+                    .append("\",\"0x000000000000000000000000").append(hex(random, 20))
+                    .append("\",\"0x000000000000000000000000").append(hex(random, 20))
+                    .append("\"],\"data\":\"0x").append("0".repeat(48)).append(hex(random, 8))
+                    .append("\"}");
+        }
+        return receipt.append("]}").toString().getBytes();
+    }
+
+    private static String hex(Random random, int bytes) {
+        var out = new StringBuilder(bytes * 2);
+        for (var i = 0; i < bytes; i++) {
+            out.append(String.format("%02x", random.nextInt(256)));
+        }
+        return out.toString();
+    }
+}
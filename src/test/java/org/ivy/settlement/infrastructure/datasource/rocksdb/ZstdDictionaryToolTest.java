@@ -0,0 +1,87 @@
+package org.ivy.settlement.infrastructure.datasource.rocksdb;
+
+import org.ivy.settlement.infrastructure.bytes.ByteUtil;
+import org.ivy.settlement.infrastructure.datasource.ColumnFamilySettings.Compression;
+import org.ivy.settlement.infrastructure.datasource.DbSettings;
+import org.ivy.settlement.infrastructure.datasource.model.DefaultValueable;
+import org.ivy.settlement.infrastructure.datasource.model.Keyable;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * description: ZstdDictionaryTool rewrites the bottommost level compressed and keeps every value readable.
+ * @author carrot
+ */
+public class ZstdDictionaryToolTest {
+
+    public static class ZstdRecord extends DefaultValueable {
+        public ZstdRecord(byte[] rlpEncoded) {
+            super(rlpEncoded);
+        }
+    }
+
+    public static class PlainRecord extends DefaultValueable {
+        public PlainRecord(byte[] rlpEncoded) {
+            super(rlpEncoded);
+        }
+    }
+
+    static final int VALUES = 2_000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    RocksDbSource dbSource;
+
+    @Before
+    public void setUp() throws Exception {
+        var settings = DbSettings.newInstance()
+                .withCompression(ZstdRecord.class, Compression.NONE, Compression.ZSTD, 0, 16 * 1024);
+        dbSource = new RocksDbSource("db", Map.of("zstd", ZstdRecord.class, "plain", PlainRecord.class),
+                folder.newFolder().getPath(), settings);
+    }
+
+    @After
+    public void tearDown() {
+        dbSource.shutdown();
+    }
+
+    @Test
+    public void trainCompressesAndKeepsValuesReadable() {
+        for (var i = 0; i < VALUES; i++) {
+            dbSource.put(key(i), new ZstdRecord(value(i)));
+        }
+
+        var report = ZstdDictionaryTool.train(dbSource, ZstdRecord.class);
+
+        assertTrue(report.getFiles() > 0);
+        assertEquals(0, report.getSstBytesBefore());
+        assertTrue(report.getDataBytes() < report.getRawBytes());
+        for (var i = 0; i < VALUES; i++) {
+            assertArrayEquals(value(i), dbSource.get(ZstdRecord.class, key(i)).getEncoded());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void trainRejectsColumnFamilyWithoutDictionary() {
+        ZstdDictionaryTool.train(dbSource, PlainRecord.class);
+    }
+
+    private static Keyable key(long height) {
+        return new Keyable.DefaultKeyable(ByteUtil.longToBytes(height));
+    }
+
+    private static byte[] value(long height) {
+        return ("{\"status\":1,\"blockNumber\":" + height + ",\"logs\":[{\"address\":\"0xa0b86991c6218b36c1d19d4a2e9eb0ce3606eb48\","
+                + "\"topics\":[\"0xddf252ad1be2c89b69c2b068fc378daa952ba7f163c4a11628f55a4df523b3ef\"],\"data\":\"0x" + Long.toHexString(height * 7919) + "\"}]}").getBytes();
+    }
+}
@@ -0,0 +1,198 @@
+package org.ivy.settlement.infrastructure.rlp;
+
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * description: RLPView reads every encoding the way RLP.decode2 does. each case is decoded by
+ * both and the trees are compared element by element, bytes() against RLPItem.getRLPData and
+ * encoded() against RLPList.getRLPData.
+ * @author carrot
+ */
+public class RLPViewTest {
+
+    @Test
+    public void emptyList() {
+        var encoded = RLP.encodeList();
+        assertEquivalent(encoded);
+        assertEquals(0, RLPView.of(encoded).size());
+    }
+
+    @Test
+    public void singleByteValues() {
+        for (var b = 0; b < 0x80; b++) {
+            var encoded = RLP.encodeList(RLP.encodeElement(new byte[]{(byte) b}));
+            assertEquals(2, encoded.length);
+            assertEquivalent(encoded);
+            assertEquals(b, RLPView.of(encoded).get(0).asInt());
+        }
+    }
+
+    @Test
+    public void emptyAndShortItems() {
+        var encoded = RLP.encodeList(
+                RLP.encodeElement(null),
+                RLP.encodeElement(new byte[]{(byte) 0x80}),
+                RLP.encodeElement(new byte[]{(byte) 0xff}),
+                RLP.encodeElement(bytes(55)),
+                RLP.encodeBigInteger(BigInteger.ZERO),
+                RLP.encodeInt(0),
+                RLP.encodeString("settlement"));
+        assertEquivalent(encoded);
+
+        var view = RLPView.of(encoded);
+        assertNull(view.get(0).bytes());
+        assertTrue(view.get(0).isEmpty());
+        assertEquals(0, view.get(0).asLong());
+        assertEquals(BigInteger.ZERO, view.get(0).asBigInteger());
+        assertNull(view.get(0).asString());
+        assertEquals(0x80, view.get(1).asInt());
+        assertEquals(0, view.get(4).asLong());
+        assertEquals("settlement", view.get(6).asString());
+    }
+
+    @Test
+    public void longLengthPrefixes() {
+        // 0xb8 with one length byte, 0xb9 with two and 0xba with three
+        for (var length : new int[]{56, 255, 256, 65_535, 65_536}) {
+            var item = RLP.encodeElement(bytes(length));
+            var encoded = RLP.encodeList(item, item);
+            assertEquivalent(encoded);
+            assertArrayEquals(bytes(length), RLPView.of(encoded).get(1).bytes());
+        }
+    }
+
+    @Test
+    public void longLists() {
+        // a list payload of exactly 56 bytes is the shortest one with a 0xf8 header
+        var items = new byte[28][];
+        Arrays.fill(items, RLP.encodeElement(new byte[]{(byte) 0x81}));
+        var encoded = RLP.encodeList(items);
+        assertEquals(0xf8, encoded[0] & 0xFF);
+        assertEquivalent(encoded);
+
+        // more children than RLP.LList can hold
+        var many = new byte[1_000][];
+        for (var i = 0; i < many.length; i++) {
+            many[i] = RLP.encodeInt(i);
+        }
+        encoded = RLP.encodeList(many);
+        assertEquivalent(encoded);
+        assertEquals(999, RLPView.of(encoded).get(999).asInt());
+    }
+
+    @Test
+    public void nestedLists() {
+        var leaf = RLP.encodeList(RLP.encodeElement(bytes(3)), RLP.encodeList());
+        var encoded = RLP.encodeList(
+                leaf,
+                RLP.encodeList(leaf, RLP.encodeList(leaf, RLP.encodeElement(bytes(100)))),
+                RLP.encodeList(RLP.encodeList(RLP.encodeList())));
+        assertEquivalent(encoded);
+
+        var view = RLPView.of(encoded);
+        assertArrayEquals(leaf, view.get(1).get(1).get(0).encoded());
+        assertTrue(view.get(2).get(0).get(0).isList());
+    }
+
+    @Test
+    public void nestedEncodingInItem() {
+        var inner = RLP.encodeList(RLP.encodeString("log"), RLP.encodeElement(bytes(80)));
+        var encoded = RLP.encodeList(RLP.encodeElement(inner), RLP.encodeElement(inner));
+        assertEquivalent(encoded);
+
+        var payload = ((RLPList) RLP.decode2(encoded).get(0)).get(1).getRLPData();
+        var nested = RLPView.of(encoded).get(1).nested();
+        assertEquivalent(RLP.decode2(payload).get(0), nested);
+        assertArrayEquals(inner, nested.encoded());
+    }
+
+    @Test
+    public void nonCanonicalEncodingsAreRejected() {
+        var cases = new byte[][]{
+                // single byte encoded as string
+                {(byte) 0xc2, (byte) 0x81, 0x05},
+                // short item with a long length prefix
+                {(byte) 0xc3, (byte) 0xb8, 0x01, 0x05},
+                // short list with a long length prefix
+                {(byte) 0xf8, 0x01, 0x05},
+                // item longer than the data
+                {(byte) 0xc3, (byte) 0x85, 0x01, 0x02}};
+        for (var encoded : cases) {
+            assertRejected(encoded);
+        }
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void childOverrunningItsListIsRejected() {
+        // decode2 reads the child past the end of its list, the view does not
+        RLPView.of(new byte[]{(byte) 0xc2, (byte) 0x83, 0x01, 0x02, 0x03}).size();
+    }
+
+    @Test
+    public void itemIsNotAList() {
+        var view = RLPView.of(RLP.encodeElement(bytes(10)));
+        assertFalse(view.isList());
+        try {
+            view.size();
+            fail();
+        } catch (RuntimeException expected) {
+        }
+    }
+
+    private static void assertRejected(byte[] encoded) {
+        var decode2Failed = false;
+        try {
+            RLP.decode2(encoded);
+        } catch (RuntimeException e) {
+            decode2Failed = true;
+        }
+        var viewFailed = false;
+        try {
+            var view = RLPView.of(encoded);
+            for (var i = 0; i < view.size(); i++) {
+                view.get(i);
+            }
+        } catch (RuntimeException e) {
+            viewFailed = true;
+        }
+        assertTrue("decode2 accepts " + Arrays.toString(encoded), decode2Failed);
+        assertTrue("RLPView accepts " + Arrays.toString(encoded), viewFailed);
+    }
+
+    public static void assertEquivalent(byte[] encoded) {
+        assertEquivalent(RLP.decode2(encoded).get(0), RLPView.of(encoded));
+    }
+
+    public static void assertEquivalent(RLPElement expected, RLPView actual) {
+        if (expected instanceof RLPList) {
+            var list = (RLPList) expected;
+            assertTrue(actual.isList());
+            assertArrayEquals(list.getRLPData(), actual.encoded());
+            assertEquals(list.size(), actual.size());
+            for (var i = 0; i < list.size(); i++) {
+                assertEquivalent(list.get(i), actual.get(i));
+            }
+        } else {
+            assertFalse(actual.isList());
+            assertArrayEquals(expected.getRLPData(), actual.bytes());
+        }
+    }
+
+    static byte[] bytes(int length) {
+        var bytes = new byte[length];
+        for (var i = 0; i < length; i++) {
+            bytes[i] = (byte) (0x80 + i);
+        }
+        return bytes;
+    }
+}